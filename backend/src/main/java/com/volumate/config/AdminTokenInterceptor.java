@@ -0,0 +1,45 @@
+package com.volumate.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Keeps the admin endpoints off the public API: a request needs the configured shared
+ * secret in the {@value #HEADER} header. Without a configured secret the endpoints are
+ * turned off and answer 404.
+ */
+@Slf4j
+public class AdminTokenInterceptor implements HandlerInterceptor {
+    
+    public static final String HEADER = "X-Admin-Token";
+    
+    /** The admin endpoints, relative to the context path */
+    public static final String[] PATHS = {"/admin/satiety-table/**", "/admin/rescore"};
+    
+    private final byte[] token;
+    
+    public AdminTokenInterceptor(String token) {
+        this.token = token == null || token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (token == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        String given = request.getHeader(HEADER);
+        // Constant time, so the secret cannot be guessed byte by byte
+        if (given == null || !MessageDigest.isEqual(token, given.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Admin request to {} rejected from {}", request.getRequestURI(), request.getRemoteAddr());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        return true;
+    }
+}
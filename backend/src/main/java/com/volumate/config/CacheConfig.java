@@ -1,12 +1,17 @@
 package com.volumate.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.volumate.service.OpenFoodFactsService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @EnableCaching
 public class CacheConfig {
@@ -14,13 +19,28 @@ public class CacheConfig {
     @Value("${cache.product.ttl:3600}")
     private int productCacheTtl;
     
+    @Value("${cache.product.hard-ttl:86400}")
+    private int productCacheHardTtl;
+    
     @Value("${cache.product.max-size:1000}")
     private int productCacheMaxSize;
     
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+    public CacheManager cacheManager(ObjectProvider<OpenFoodFactsService> openFoodFactsService) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Async mode makes @Cacheable store the resolved Product of a Mono instead of the publisher itself
+        cacheManager.setAsyncCacheMode(true);
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+            .maximumSize(productCacheMaxSize)
+            // Past the soft TTL an entry is still served while it is reloaded in the background,
+            // at most one reload per key at a time; the hard TTL bounds how stale it can get
+            .refreshAfterWrite(Duration.ofSeconds(productCacheTtl))
+            .expireAfterWrite(Duration.ofSeconds(productCacheHardTtl))
+            .recordStats());
+        cacheManager.setAsyncCacheLoader((key, executor) ->
+            openFoodFactsService.getObject().refreshProduct((String) key).toFuture());
         cacheManager.setCacheNames(java.util.Arrays.asList("products"));
         return cacheManager;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+package com.volumate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Pooled HTTP clients for OpenFoodFacts, one for the API and one for the image host.
+ * Everything is driven from {@code external.openfoodfacts.*}; point {@code base-url} and
+ * {@code image-base-url} at local stubs to test offline.
+ */
+@Configuration
+public class OpenFoodFactsClientConfig {
+    
+    @Value("${external.openfoodfacts.base-url}")
+    private String baseUrl;
+    
+    @Value("${external.openfoodfacts.connect-timeout:2000}")
+    private int connectTimeout;
+    
+    @Value("${external.openfoodfacts.response-timeout:5000}")
+    private long responseTimeout;
+    
+    @Value("${external.openfoodfacts.pool.max-connections:50}")
+    private int maxConnections;
+    
+    @Value("${external.openfoodfacts.pool.pending-acquire-max-count:200}")
+    private int pendingAcquireMaxCount;
+    
+    @Value("${external.openfoodfacts.pool.pending-acquire-timeout:2000}")
+    private long pendingAcquireTimeout;
+    
+    @Value("${external.openfoodfacts.pool.max-idle-time:30000}")
+    private long maxIdleTime;
+    
+    @Value("${external.openfoodfacts.pool.max-life-time:300000}")
+    private long maxLifeTime;
+    
+    @Value("${external.openfoodfacts.pool.evict-interval:30000}")
+    private long evictInterval;
+    
+    @Value("${external.openfoodfacts.keep-alive:true}")
+    private boolean keepAlive;
+    
+    @Value("${external.openfoodfacts.compression:true}")
+    private boolean compression;
+    
+    @Value("${external.openfoodfacts.http2:false}")
+    private boolean http2;
+    
+    @Value("${external.openfoodfacts.max-in-memory-size:2097152}")
+    private int maxInMemorySize;
+    
+    @Value("${external.openfoodfacts.image-base-url:https://images.openfoodfacts.org}")
+    private String imageBaseUrl;
+    
+    @Value("${external.openfoodfacts.image-max-size:5242880}")
+    private int imageMaxSize;
+    
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider openFoodFactsConnectionProvider() {
+        return ConnectionProvider.builder("openfoodfacts")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pendingAcquireMaxCount)
+            .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeout))
+            .maxIdleTime(Duration.ofMillis(maxIdleTime))
+            .maxLifeTime(Duration.ofMillis(maxLifeTime))
+            .evictInBackground(Duration.ofMillis(evictInterval))
+            // Publishes reactor.netty.connection.provider.* pool gauges
+            .metrics(true)
+            .build();
+    }
+    
+    @Bean
+    public WebClient openFoodFactsWebClient(ConnectionProvider openFoodFactsConnectionProvider, ObjectMapper objectMapper) {
+        HttpClient httpClient = httpClient(openFoodFactsConnectionProvider)
+            // Collapse barcodes into one URI tag so the client metrics stay low-cardinality
+            .metrics(true, uri -> uri.replaceAll("/product/[^/?]+", "/product/{barcode}").replaceAll("\\?.*", ""));
+        
+        return WebClient.builder()
+            .baseUrl(baseUrl)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(configurer -> {
+                // Share the application mapper, which skips properties our models do not declare
+                configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                configurer.defaultCodecs().maxInMemorySize(maxInMemorySize);
+            })
+            .build();
+    }
+    
+    /**
+     * Fetches product images, which are already compressed, so responses are taken as is.
+     * The pool is shared with the API client; connections are pooled per host anyway.
+     */
+    @Bean
+    public WebClient openFoodFactsImageWebClient(ConnectionProvider openFoodFactsConnectionProvider) {
+        HttpClient httpClient = httpClient(openFoodFactsConnectionProvider)
+            .compress(false)
+            // One URI tag for all images
+            .metrics(true, uri -> "/images/{image}");
+        
+        return WebClient.builder()
+            .baseUrl(imageBaseUrl)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(imageMaxSize))
+            .build();
+    }
+    
+    private HttpClient httpClient(ConnectionProvider connectionProvider) {
+        return HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .keepAlive(keepAlive)
+            .responseTimeout(Duration.ofMillis(responseTimeout))
+            .compress(compression)
+            .protocol(http2 ? new HttpProtocol[] {HttpProtocol.H2, HttpProtocol.HTTP11} : new HttpProtocol[] {HttpProtocol.HTTP11});
+    }
+}
@@ -3,6 +3,7 @@ package com.volumate.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -17,6 +18,9 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${security.cors.allowed-headers:*}")
     private String allowedHeaders;
     
+    @Value("${security.admin.token:}")
+    private String adminToken;
+    
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
@@ -26,4 +30,10 @@ public class WebConfig implements WebMvcConfigurer {
             .allowCredentials(true)
             .maxAge(3600);
     }
-} 
\ No newline at end of file
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdminTokenInterceptor(adminToken))
+            .addPathPatterns(AdminTokenInterceptor.PATHS);
+    }
+}
@@ -0,0 +1,67 @@
+package com.volumate.controller;
+
+import com.volumate.model.ApiResponse;
+import com.volumate.model.RescoreReport;
+import com.volumate.model.SatietyTableInfo;
+import com.volumate.service.CatalogRescorer;
+import com.volumate.service.SatietyIndexService;
+import com.volumate.service.SatietyTable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@RequestMapping("/admin")
+@Slf4j
+public class AdminController {
+    
+    private final SatietyIndexService satietyIndexService;
+    private final CatalogRescorer catalogRescorer;
+    
+    @Autowired
+    public AdminController(SatietyIndexService satietyIndexService, CatalogRescorer catalogRescorer) {
+        this.satietyIndexService = satietyIndexService;
+        this.catalogRescorer = catalogRescorer;
+    }
+    
+    @GetMapping("/satiety-table")
+    public ResponseEntity<ApiResponse<SatietyTableInfo>> getSatietyTable() {
+        return ResponseEntity.ok(ApiResponse.success(info(satietyIndexService.getTable())));
+    }
+    
+    @PostMapping("/satiety-table/reload")
+    public ResponseEntity<ApiResponse<SatietyTableInfo>> reloadSatietyTable() {
+        log.info("Satiety table reload requested");
+        try {
+            return ResponseEntity.ok(ApiResponse.success(info(satietyIndexService.reload()), "Satiety table reloaded"));
+        } catch (RuntimeException e) {
+            // The previous table is still active
+            log.error("Satiety table reload failed - {}", e.getMessage());
+            return ResponseEntity.unprocessableEntity()
+                .body(ApiResponse.error("Failed to reload satiety table", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/rescore")
+    public ResponseEntity<ApiResponse<RescoreReport>> startRescore() {
+        log.info("Catalog re-scoring requested");
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(catalogRescorer.start(), "Re-scoring started"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("Re-scoring not started", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/rescore")
+    public ResponseEntity<ApiResponse<RescoreReport>> getRescoreStatus() {
+        return ResponseEntity.ok(ApiResponse.success(catalogRescorer.getStatus()));
+    }
+    
+    private SatietyTableInfo info(SatietyTable table) {
+        return new SatietyTableInfo(table.getVersion(), table.getIndex().size());
+    }
+}
@@ -0,0 +1,101 @@
+package com.volumate.controller;
+
+import com.volumate.model.ApiResponse;
+import com.volumate.service.ProductImageService;
+import com.volumate.service.ProductImageService.Thumbnail;
+import com.volumate.service.ProductImageService.ThumbnailSize;
+import com.volumate.service.UpstreamUnavailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import jakarta.validation.constraints.Pattern;
+
+@RestController
+@RequestMapping("/images")
+@CrossOrigin(origins = "*") // Configure properly for production
+@Slf4j
+public class ImageController {
+
+    private final ProductImageService productImageService;
+    private final CacheControl cacheControl;
+
+    @Autowired
+    public ImageController(ProductImageService productImageService,
+                           @Value("${images.max-age:604800}") long maxAgeSeconds) {
+        this.productImageService = productImageService;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+    /**
+     * A JPEG thumbnail of the product's image. Clients revalidate with If-None-Match and
+     * get a 304 until OpenFoodFacts has a new image for the product.
+     */
+    @GetMapping("/products/{barcode}")
+    public Mono<ResponseEntity<byte[]>> getProductThumbnail(
+            @PathVariable
+            @Pattern(regexp = "^[0-9]{8,14}$", message = "Barcode must be 8-14 digits")
+            String barcode,
+            @RequestParam(defaultValue = "medium")
+            @Pattern(regexp = "(?i)small|medium|large", message = "Size must be small, medium or large")
+            String size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        return productImageService.getThumbnail(barcode, ThumbnailSize.valueOf(size.toUpperCase(Locale.ROOT)))
+            .map(thumbnail -> respond(thumbnail, ifNoneMatch))
+            .defaultIfEmpty(ResponseEntity.notFound().build())
+            // A barcode failing its check digit is handled below as a bad request
+            .onErrorResume(error -> !(error instanceof IllegalArgumentException), error -> {
+                log.error("Error serving image for barcode: {} - {}", barcode, error.getMessage());
+                HttpStatus status = error instanceof UpstreamUnavailableException
+                    ? HttpStatus.SERVICE_UNAVAILABLE
+                    : HttpStatus.INTERNAL_SERVER_ERROR;
+                return Mono.just(ResponseEntity.status(status).build());
+            });
+    }
+
+    private ResponseEntity<byte[]> respond(Thumbnail thumbnail, String ifNoneMatch) {
+        if (ifNoneMatch != null && matches(ifNoneMatch, thumbnail.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(thumbnail.etag())
+                .cacheControl(cacheControl)
+                .build();
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.IMAGE_JPEG)
+            .eTag(thumbnail.etag())
+            .cacheControl(cacheControl)
+            .body(thumbnail.jpeg());
+    }
+
+    // Weak tags compare equal per RFC 9110
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse<String>> handleValidationError(IllegalArgumentException e) {
+        log.warn("Validation error: {}", e.getMessage());
+        return ResponseEntity.badRequest()
+            .body(ApiResponse.error("Invalid input", e.getMessage()));
+    }
+}
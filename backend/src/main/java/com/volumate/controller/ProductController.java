@@ -1,16 +1,27 @@
 package com.volumate.controller;
 
 import com.volumate.model.ApiResponse;
+import com.volumate.model.BatchLookupRequest;
+import com.volumate.model.BatchLookupResult;
 import com.volumate.model.Product;
+import com.volumate.service.ProductSearchService;
 import com.volumate.service.ProductService;
+import com.volumate.service.UpstreamUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 
 @RestController
 @RequestMapping("/products")
@@ -19,39 +30,108 @@ import jakarta.validation.constraints.Pattern;
 public class ProductController {
     
     private final ProductService productService;
+    private final ProductSearchService productSearchService;
     
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductSearchService productSearchService) {
         this.productService = productService;
+        this.productSearchService = productSearchService;
     }
     
     @GetMapping("/{barcode}")
     public Mono<ResponseEntity<ApiResponse<Product>>> getProductByBarcode(
             @PathVariable 
             @NotBlank(message = "Barcode cannot be empty")
-            @Pattern(regexp = "^[0-9]{8,13}$", message = "Barcode must be 8-13 digits")
+            @Pattern(regexp = "^[0-9]{8,14}$", message = "Barcode must be 8-14 digits")
             String barcode) {
         
         log.info("Received request for product with barcode: {}", barcode);
         
         return productService.getProductWithScore(barcode)
             .map(product -> {
-                if (product != null) {
-                    log.info("Successfully retrieved product: {}", product.getProductName());
-                    log.info("Product image URL: {}", product.getImage_url());
-                    return ResponseEntity.ok(ApiResponse.success(product));
-                } else {
-                    log.warn("Product not found for barcode: {}", barcode);
-                    return ResponseEntity.ok(ApiResponse.<Product>error("Product not found", null));
-                }
+                log.info("Successfully retrieved product: {}", product.getProductName());
+                log.info("Product image URL: {}", product.getImage_url());
+                return ResponseEntity.ok(ApiResponse.success(product));
             })
-            .onErrorResume(error -> {
+            .switchIfEmpty(Mono.fromSupplier(() -> {
+                log.warn("Product not found for barcode: {}", barcode);
+                return ResponseEntity.ok(ApiResponse.<Product>error("Product not found", null));
+            }))
+            // A barcode failing its check digit is handled below as a bad request
+            .onErrorResume(error -> !(error instanceof IllegalArgumentException), error -> {
                 log.error("Error processing request for barcode: {} - {}", barcode, error.getMessage());
+                // OpenFoodFacts being down or circuit-broken is not our own failure
+                HttpStatus status = error instanceof UpstreamUnavailableException
+                    ? HttpStatus.SERVICE_UNAVAILABLE
+                    : HttpStatus.INTERNAL_SERVER_ERROR;
+                return Mono.just(ResponseEntity.status(status)
+                    .body(ApiResponse.<Product>error("Failed to fetch product data", error.getMessage())));
+            });
+    }
+    
+    @GetMapping("/{barcode}/alternatives")
+    public Mono<ResponseEntity<ApiResponse<List<Product>>>> getAlternatives(
+            @PathVariable 
+            @Pattern(regexp = "^[0-9]{8,14}$", message = "Barcode must be 8-14 digits")
+            String barcode,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = "Limit must be 1-50")
+            @Max(value = 50, message = "Limit must be 1-50")
+            int limit) {
+        
+        log.info("Received alternatives request for barcode: {}", barcode);
+        
+        return productService.getAlternatives(barcode, limit)
+            .map(alternatives -> ResponseEntity.ok(ApiResponse.success(alternatives)))
+            .switchIfEmpty(Mono.fromSupplier(() ->
+                ResponseEntity.ok(ApiResponse.<List<Product>>error("Product not found", null))))
+            .onErrorResume(error -> !(error instanceof IllegalArgumentException), error -> {
+                log.error("Error finding alternatives for barcode: {} - {}", barcode, error.getMessage());
+                HttpStatus status = error instanceof UpstreamUnavailableException
+                    ? HttpStatus.SERVICE_UNAVAILABLE
+                    : HttpStatus.INTERNAL_SERVER_ERROR;
+                return Mono.just(ResponseEntity.status(status)
+                    .body(ApiResponse.<List<Product>>error("Failed to find alternatives", error.getMessage())));
+            });
+    }
+    
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<ApiResponse<List<BatchLookupResult>>>> getProductsByBarcodes(
+            @Valid @RequestBody BatchLookupRequest request) {
+        
+        log.info("Received batch request for {} barcodes", request.getBarcodes().size());
+        
+        return productService.getProductsWithScore(request.getBarcodes())
+            .collectList()
+            .map(results -> ResponseEntity.ok(ApiResponse.success(results)))
+            .onErrorResume(error -> {
+                log.error("Error processing batch request - {}", error.getMessage());
                 return Mono.just(ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to fetch product data", error.getMessage())));
             });
     }
     
+    @GetMapping("/search")
+    public Mono<ResponseEntity<ApiResponse<List<Product>>>> searchProducts(
+            @RequestParam 
+            @Size(min = 2, max = 100, message = "Query must be 2-100 characters")
+            String q,
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Limit must be 1-50")
+            @Max(value = 50, message = "Limit must be 1-50")
+            int limit) {
+        
+        log.debug("Received product search: {}", q);
+        
+        return productSearchService.search(q, limit)
+            .map(products -> ResponseEntity.ok(ApiResponse.success(products)))
+            .onErrorResume(error -> !(error instanceof IllegalArgumentException), error -> {
+                log.error("Error searching products for: {} - {}", q, error.getMessage());
+                return Mono.just(ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to search products", error.getMessage())));
+            });
+    }
+    
     @GetMapping("/health")
     public ResponseEntity<ApiResponse<String>> healthCheck() {
         log.debug("Health check endpoint called");
@@ -0,0 +1,74 @@
+package com.volumate.controller;
+
+import com.volumate.service.SatietyIndexService;
+import com.volumate.service.SatietyIndexSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/satiety-index")
+@CrossOrigin(origins = "*") // Configure properly for production
+public class SatietyController {
+    
+    private final SatietyIndexService satietyIndexService;
+    private final CacheControl cacheControl;
+    
+    @Autowired
+    public SatietyController(SatietyIndexService satietyIndexService,
+                             @Value("${satiety.index.max-age:300}") long maxAgeSeconds) {
+        this.satietyIndexService = satietyIndexService;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+    
+    /**
+     * The satiety reference table, served from a pre-serialized snapshot. Clients and
+     * proxies revalidate with If-None-Match and get a 304 until the table changes.
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> getSatietyIndex(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        SatietyIndexSnapshot snapshot = satietyIndexService.getSnapshot();
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? snapshot.getGzipEtag() : snapshot.getEtag();
+        
+        if (ifNoneMatch != null && matches(ifNoneMatch, snapshot)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(etag)
+            .cacheControl(cacheControl)
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipped());
+        }
+        return response.body(snapshot.getJson());
+    }
+    
+    // Either encoding's tag names the same table; weak tags compare equal per RFC 9110
+    private static boolean matches(String ifNoneMatch, SatietyIndexSnapshot snapshot) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(snapshot.getEtag()) || candidate.equals(snapshot.getGzipEtag())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package com.volumate.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLookupRequest {
+    
+    @NotEmpty(message = "Barcodes cannot be empty")
+    @Size(max = 300, message = "At most 300 barcodes per batch")
+    private List<String> barcodes;
+}
@@ -0,0 +1,34 @@
+package com.volumate.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLookupResult {
+    
+    public enum Status { FOUND, NOT_FOUND, INVALID, ERROR }
+    
+    private String barcode;
+    private Status status;
+    private Product product;
+    private String error;
+    
+    public static BatchLookupResult found(String barcode, Product product) {
+        return new BatchLookupResult(barcode, Status.FOUND, product, null);
+    }
+    
+    public static BatchLookupResult notFound(String barcode) {
+        return new BatchLookupResult(barcode, Status.NOT_FOUND, null, null);
+    }
+    
+    public static BatchLookupResult invalid(String barcode, String error) {
+        return new BatchLookupResult(barcode, Status.INVALID, null, error);
+    }
+    
+    public static BatchLookupResult error(String barcode, String error) {
+        return new BatchLookupResult(barcode, Status.ERROR, null, error);
+    }
+}
@@ -0,0 +1,22 @@
+package com.volumate.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReport {
+    
+    private String file;
+    private long linesRead;
+    private long productsStored;
+    private long linesSkipped;
+    private long resumedFromLine;
+    private long elapsedMillis;
+    
+    public double getProductsPerSecond() {
+        return elapsedMillis > 0 ? productsStored * 1000.0 / elapsedMillis : 0;
+    }
+}
@@ -0,0 +1,214 @@
+package com.volumate.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The per-100g nutrient values of a product. Only the nutrients the satiety rules use are
+ * kept, as primitives; OpenFoodFacts sends a few hundred keys, and any other key is dropped
+ * while reading unless it is listed in {@code product.nutriments.extra-keys}.
+ * <p>
+ * Serialized with the OpenFoodFacts key names, leaving out absent values.
+ */
+@JsonSerialize(using = Nutriments.Serializer.class)
+@JsonDeserialize(using = Nutriments.Deserializer.class)
+public final class Nutriments {
+    
+    public enum Nutrient {
+        SUGARS("sugars_100g"),
+        FAT("fat_100g"),
+        SALT("salt_100g"),
+        WATER("water_100g"),
+        PROTEINS("proteins_100g"),
+        FIBER("fiber_100g");
+        
+        private static final Nutrient[] VALUES = values();
+        
+        private final String key;
+        
+        Nutrient(String key) {
+            this.key = key;
+        }
+        
+        public String getKey() {
+            return key;
+        }
+        
+        /**
+         * The nutrient stored under an OpenFoodFacts key, or null.
+         */
+        public static Nutrient fromKey(String key) {
+            for (Nutrient nutrient : VALUES) {
+                if (nutrient.key.equals(key)) {
+                    return nutrient;
+                }
+            }
+            return null;
+        }
+    }
+    
+    // NaN marks a value the product does not have
+    private final double[] values = new double[Nutrient.VALUES.length];
+    
+    // Only allocated when extra keys are requested and present
+    private Map<String, Double> extras;
+    
+    public Nutriments() {
+        Arrays.fill(values, Double.NaN);
+    }
+    
+    /**
+     * The value per 100g, or NaN if the product does not have it.
+     */
+    public double get(Nutrient nutrient) {
+        return values[nutrient.ordinal()];
+    }
+    
+    public void set(Nutrient nutrient, double value) {
+        values[nutrient.ordinal()] = value;
+    }
+    
+    /**
+     * The value of a nutrient by OpenFoodFacts key, from the typed values or the requested
+     * extras, or NaN.
+     */
+    public double get(String key) {
+        Nutrient nutrient = Nutrient.fromKey(key);
+        if (nutrient != null) {
+            return get(nutrient);
+        }
+        Double extra = extras != null ? extras.get(key) : null;
+        return extra != null ? extra : Double.NaN;
+    }
+    
+    /**
+     * Stores a value read under an OpenFoodFacts key: typed if it is a scored nutrient,
+     * as an extra if the key is one of {@code extraKeys}, otherwise not at all.
+     */
+    public void put(String key, double value, Collection<String> extraKeys) {
+        Nutrient nutrient = Nutrient.fromKey(key);
+        if (nutrient != null) {
+            set(nutrient, value);
+        } else if (extraKeys.contains(key)) {
+            if (extras == null) {
+                extras = new TreeMap<>();
+            }
+            extras.put(key, value);
+        }
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Nutriments)) {
+            return false;
+        }
+        Nutriments other = (Nutriments) o;
+        return Arrays.equals(values, other.values) && Objects.equals(extras, other.extras);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(values) + Objects.hashCode(extras);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Nutriments(");
+        for (Nutrient nutrient : Nutrient.VALUES) {
+            if (!Double.isNaN(get(nutrient))) {
+                text.append(nutrient.key).append('=').append(get(nutrient)).append(", ");
+            }
+        }
+        if (extras != null) {
+            extras.forEach((key, value) -> text.append(key).append('=').append(value).append(", "));
+        }
+        if (text.charAt(text.length() - 1) == ' ') {
+            text.setLength(text.length() - 2);
+        }
+        return text.append(')').toString();
+    }
+    
+    public static class Serializer extends JsonSerializer<Nutriments> {
+        
+        @Override
+        public void serialize(Nutriments nutriments, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject();
+            for (Nutrient nutrient : Nutrient.VALUES) {
+                double value = nutriments.get(nutrient);
+                if (!Double.isNaN(value)) {
+                    generator.writeNumberField(nutrient.key, value);
+                }
+            }
+            if (nutriments.extras != null) {
+                for (Map.Entry<String, Double> extra : nutriments.extras.entrySet()) {
+                    generator.writeNumberField(extra.getKey(), extra.getValue());
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+    
+    /**
+     * Reads the OpenFoodFacts nutriments object in one pass. Values may be numbers or
+     * numeric strings; anything else is skipped. When created through Spring's handler
+     * instantiator the extra keys come from configuration, otherwise there are none.
+     */
+    public static class Deserializer extends JsonDeserializer<Nutriments> {
+        
+        private Set<String> extraKeys = Set.of();
+        
+        @Value("${product.nutriments.extra-keys:}")
+        public void setExtraKeys(Set<String> extraKeys) {
+            this.extraKeys = new HashSet<>(extraKeys);
+            this.extraKeys.remove("");
+        }
+        
+        @Override
+        public Nutriments deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartObjectToken()) {
+                return (Nutriments) context.handleUnexpectedToken(Nutriments.class, parser);
+            }
+            Nutriments nutriments = new Nutriments();
+            String key;
+            while ((key = parser.nextFieldName()) != null) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                    nutriments.put(key, parser.getDoubleValue(), extraKeys);
+                } else if (token == JsonToken.VALUE_STRING) {
+                    Nutrient nutrient = Nutrient.fromKey(key);
+                    if (nutrient != null || extraKeys.contains(key)) {
+                        try {
+                            nutriments.put(key, Double.parseDouble(parser.getText()), extraKeys);
+                        } catch (NumberFormatException e) {
+                            // Leave malformed values out
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return nutriments;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.volumate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,6 +10,7 @@ import lombok.AllArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class OpenFoodFactsResponse {
     
     @JsonProperty("status")
@@ -22,6 +25,7 @@ public class OpenFoodFactsResponse {
     @JsonProperty("code")
     private String code;
     
+    @JsonIgnore
     public boolean isSuccess() {
         return status != null && status == 1 && product != null;
     }
@@ -5,14 +5,17 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 
 import java.util.List;
-import java.util.Map;
 
 @Data
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
-@JsonIgnoreProperties(ignoreUnknown = true)
+// Derived getters are serialized for the app but must not be bound when reading a stored product back
+@JsonIgnoreProperties(value = {"categoriesLower", "productNameLower", "displayName", "keywordsLower"},
+    allowGetters = true, ignoreUnknown = true)
 public class Product {
     
     @JsonProperty("code")
@@ -43,7 +46,7 @@ public class Product {
     private String nutritionGrade;
     
     @JsonProperty("nutriments")
-    private Map<String, Object> nutriments;
+    private Nutriments nutriments;
     
     @JsonProperty("allergens_tags")
     private List<String> allergensTags;
@@ -71,6 +74,9 @@ public class Product {
     private String volumeSerenityRating;
     private String volumeSerenityRatingColor;
     
+    // Set when served from the local store because OpenFoodFacts was unavailable
+    private boolean possiblyStale;
+    
     // Helper methods
   /*  public boolean hasValidData() {
         return productName != null && !productName.trim().isEmpty();
@@ -0,0 +1,34 @@
+package com.volumate.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RescoreReport {
+    
+    public enum State { IDLE, RUNNING, COMPLETED, FAILED }
+    
+    private State state;
+    private String tableVersion;
+    // Stored products when the run started
+    private long total;
+    private long scanned;
+    // Products whose stored score or rating changed
+    private long updated;
+    // Products stored again while being re-scored, which keep their newer score
+    private long skipped;
+    private long failed;
+    private long elapsedMillis;
+    private String error;
+    
+    public double getProductsPerSecond() {
+        return elapsedMillis > 0 ? scanned * 1000.0 / elapsedMillis : 0;
+    }
+    
+    public double getPercentComplete() {
+        return total > 0 ? Math.min(100.0, scanned * 100.0 / total) : 0;
+    }
+}
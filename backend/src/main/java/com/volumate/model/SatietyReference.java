@@ -0,0 +1,19 @@
+package com.volumate.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * The satiety index table as shown in the app, keyed by food name as spelled in the table file.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SatietyReference {
+    
+    private String version;
+    private Map<String, Integer> index;
+}
@@ -0,0 +1,74 @@
+package com.volumate.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The satiety table data file as written, see {@code satiety/satiety-table.json}.
+ */
+@Data
+@NoArgsConstructor
+public class SatietyTableDefinition {
+    
+    // Bumped with every change to the file; cached scores are tied to it
+    private String version;
+    
+    // Food name or category keyword to satiety index (white bread = 100)
+    private Map<String, Integer> index = new LinkedHashMap<>();
+    
+    private PriorityCategories priorityCategories = new PriorityCategories();
+    
+    private Adjustments adjustments = new Adjustments();
+    
+    private Fuzzy fuzzy = new Fuzzy();
+    
+    @Data
+    @NoArgsConstructor
+    public static class PriorityCategories {
+        // Index entry used when a category contains one of the priority categories
+        private String indexKey;
+        private List<String> categories = new ArrayList<>();
+    }
+    
+    @Data
+    @NoArgsConstructor
+    public static class Adjustments {
+        private double processedMeatFactor = 1.0;
+        private Map<String, Double> novaGroupFactors = new LinkedHashMap<>();
+        // Applied in order; the first band whose minimum the nutriment reaches sets the factor
+        private List<NutrientAdjustment> nutrients = new ArrayList<>();
+    }
+    
+    @Data
+    @NoArgsConstructor
+    public static class Fuzzy {
+        // Shorter tokens are never matched fuzzily; short words sit too close to unrelated keys
+        private int minLength = 6;
+        // One edit allowed per this many letters, up to maxEdits; 0 maxEdits turns fuzzy matching off
+        private int lettersPerEdit = 3;
+        private int maxEdits = 2;
+        // Time allowed per product before fuzzy matching gives up
+        private long budgetMicros = 500;
+        // Common ingredients that are never matched fuzzily, so drinks are not scored as food
+        private List<String> stopWords = new ArrayList<>();
+    }
+    
+    @Data
+    @NoArgsConstructor
+    public static class NutrientAdjustment {
+        private String nutriment;
+        private List<Band> bands = new ArrayList<>();
+    }
+    
+    @Data
+    @NoArgsConstructor
+    public static class Band {
+        private double min;
+        private double factor;
+    }
+}
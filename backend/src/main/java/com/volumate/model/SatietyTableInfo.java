@@ -0,0 +1,14 @@
+package com.volumate.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SatietyTableInfo {
+    
+    private String version;
+    private int entries;
+}
@@ -0,0 +1,42 @@
+package com.volumate.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredProduct {
+    
+    private String barcode;
+    
+    // Raw OpenFoodFacts response the product was parsed from
+    private String payload;
+    
+    private Product product;
+    
+    private Integer score;
+    private String rating;
+    private String ratingColor;
+    
+    private Instant fetchedAt;
+    
+    /**
+     * A copy of the product carrying the score stored with it.
+     */
+    public Product withStoredScore() {
+        return product.toBuilder()
+            .barcode(barcode)
+            .volumeSerenityScore(score)
+            .volumeSerenityRating(rating)
+            .volumeSerenityRatingColor(ratingColor)
+            .build();
+    }
+    
+    public boolean isOlderThan(long seconds) {
+        return fetchedAt == null || fetchedAt.plusSeconds(seconds).isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,360 @@
+package com.volumate.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volumate.model.Product;
+import com.volumate.model.StoredProduct;
+import com.volumate.util.TextFolding;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * SQLite-backed store of everything we have fetched from OpenFoodFacts, so restarts
+ * and redeploys start warm. All methods block and must be called off the event loop.
+ */
+@Repository
+@Slf4j
+public class ProductStore {
+    
+    private static final String UPSERT = """
+        INSERT INTO products (barcode, payload, product_json, score, rating, rating_color, fetched_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT(barcode) DO UPDATE SET
+            payload = excluded.payload,
+            product_json = excluded.product_json,
+            score = excluded.score,
+            rating = excluded.rating,
+            rating_color = excluded.rating_color,
+            fetched_at = excluded.fetched_at
+        """;
+    
+    // Low bits of a search row number, holding the product's id in product_search_docs
+    private static final int SEARCH_ID_BITS = 40;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final RowMapper<StoredProduct> rowMapper = (rs, rowNum) -> new StoredProduct(
+        rs.getString("barcode"),
+        rs.getString("payload"),
+        readProduct(rs.getString("product_json")),
+        (Integer) rs.getObject("score"),
+        rs.getString("rating"),
+        rs.getString("rating_color"),
+        Instant.ofEpochMilli(rs.getLong("fetched_at")));
+    
+    @Autowired
+    public ProductStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+    
+    public Optional<StoredProduct> findByBarcode(String barcode) {
+        List<StoredProduct> rows = jdbcTemplate.query(
+            "SELECT * FROM products WHERE barcode = ?", rowMapper, barcode);
+        return rows.stream().filter(stored -> stored.getProduct() != null).findFirst();
+    }
+    
+    public List<StoredProduct> findByBarcodes(Collection<String> barcodes) {
+        if (barcodes.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(barcodes.size(), "?"));
+        return jdbcTemplate.query("SELECT * FROM products WHERE barcode IN (" + placeholders + ")",
+                rowMapper, barcodes.toArray()).stream()
+            .filter(stored -> stored.getProduct() != null)
+            .toList();
+    }
+    
+    /**
+     * Upserts all products in one transaction, which is what makes SQLite writes cheap.
+     */
+    @Transactional
+    public void saveAll(List<StoredProduct> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT, products, products.size(), (ps, stored) -> {
+            ps.setString(1, stored.getBarcode());
+            ps.setString(2, stored.getPayload());
+            ps.setString(3, writeProduct(stored.getProduct()));
+            if (stored.getScore() != null) {
+                ps.setInt(4, stored.getScore());
+            } else {
+                ps.setNull(4, Types.INTEGER);
+            }
+            ps.setString(5, stored.getRating());
+            ps.setString(6, stored.getRatingColor());
+            ps.setLong(7, stored.getFetchedAt().toEpochMilli());
+        });
+        indexForSearch(products.stream()
+            .map(stored -> new SearchEntry(stored.getBarcode(), stored.getScore(), stored.getProduct()))
+            .toList());
+        log.debug("Stored batch of {} products", products.size());
+    }
+    
+    /**
+     * One page of the raw stored rows with barcodes after {@code afterBarcode}, in barcode
+     * order; pass null for the first page. The product JSON is left for the caller to parse.
+     */
+    public List<ProductRow> findPageAfter(String afterBarcode, int limit) {
+        return jdbcTemplate.query(
+            "SELECT barcode, product_json, score, rating, fetched_at FROM products WHERE barcode > ? ORDER BY barcode LIMIT ?",
+            (rs, rowNum) -> new ProductRow(rs.getString("barcode"), rs.getString("product_json"),
+                (Integer) rs.getObject("score"), rs.getString("rating"), rs.getLong("fetched_at")),
+            afterBarcode != null ? afterBarcode : "", limit);
+    }
+    
+    /**
+     * One page of scored products after {@code afterBarcode}, in barcode order, with just
+     * their raw categories; pass null for the first page.
+     */
+    public List<CategoryRow> findScoredCategoriesAfter(String afterBarcode, int limit) {
+        return jdbcTemplate.query("""
+            SELECT barcode, json_extract(product_json, '$.categories') AS categories, score FROM products
+            WHERE barcode > ? AND score IS NOT NULL ORDER BY barcode LIMIT ?
+            """,
+            (rs, rowNum) -> new CategoryRow(rs.getString("barcode"), rs.getString("categories"), rs.getInt("score")),
+            afterBarcode != null ? afterBarcode : "", limit);
+    }
+    
+    /**
+     * Updates the score columns of already stored products in one transaction. A row
+     * stored again since its score was computed keeps its newer score; the barcodes of
+     * those rows are returned.
+     */
+    @Transactional
+    public List<String> updateScores(List<ScoreUpdate> updates) {
+        if (updates.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(
+            "UPDATE products SET score = ?, rating = ?, rating_color = ? WHERE barcode = ? AND fetched_at = ?",
+            updates, updates.size(), (ps, update) -> {
+                if (update.score() != null) {
+                    ps.setInt(1, update.score());
+                } else {
+                    ps.setNull(1, Types.INTEGER);
+                }
+                ps.setString(2, update.rating());
+                ps.setString(3, update.ratingColor());
+                ps.setString(4, update.barcode());
+                ps.setLong(5, update.fetchedAt());
+            });
+        List<String> changed = new ArrayList<>();
+        List<ScoreUpdate> applied = new ArrayList<>(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            ScoreUpdate update = updates.get(i);
+            if (counts[0][i] == 0) {
+                changed.add(update.barcode());
+            } else {
+                applied.add(update);
+            }
+        }
+        renumberForSearch(applied);
+        log.debug("Updated scores of {} products, {} changed meanwhile", updates.size() - changed.size(), changed.size());
+        return changed;
+    }
+    
+    /**
+     * Barcodes of the products matching an FTS5 query over names, brands and categories,
+     * best score first.
+     */
+    public List<String> searchBarcodes(String matchQuery, int limit) {
+        return jdbcTemplate.queryForList(
+            "SELECT barcode FROM product_search WHERE product_search MATCH ? ORDER BY rowid DESC LIMIT ?",
+            String.class, matchQuery, limit);
+    }
+    
+    public long countSearchable() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_search_docs", Long.class);
+        return count != null ? count : 0;
+    }
+    
+    /**
+     * Adds the rows missing from the search index, for stores written before it existed.
+     * Returns how many were added.
+     */
+    @Transactional
+    public int indexMissingForSearch(List<ProductRow> rows) {
+        Map<String, long[]> docs = findSearchDocs(rows.stream().map(ProductRow::barcode).toList());
+        List<SearchEntry> missing = new ArrayList<>();
+        for (ProductRow row : rows) {
+            if (!docs.containsKey(row.barcode())) {
+                Product product = readProduct(row.productJson());
+                if (product != null) {
+                    missing.add(new SearchEntry(row.barcode(), row.score(), product));
+                }
+            }
+        }
+        indexForSearch(missing);
+        return missing.size();
+    }
+    
+    /**
+     * (Re)indexes a batch of products, with one batched statement per step rather than
+     * several statements per product.
+     */
+    private void indexForSearch(List<SearchEntry> entries) {
+        // Later entries for the same barcode win, as in the upsert
+        Map<String, SearchEntry> byBarcode = new LinkedHashMap<>();
+        for (SearchEntry entry : entries) {
+            byBarcode.put(entry.barcode(), entry);
+        }
+        if (byBarcode.isEmpty()) {
+            return;
+        }
+        List<String> barcodes = new ArrayList<>(byBarcode.keySet());
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO product_search_docs (barcode, search_rowid) VALUES (?, 0) ON CONFLICT(barcode) DO NOTHING",
+            barcodes, barcodes.size(), (ps, barcode) -> ps.setString(1, barcode));
+        Map<String, long[]> docs = findSearchDocs(barcodes);
+        
+        Map<Long, SearchEntry> entriesById = new HashMap<>();
+        byBarcode.forEach((barcode, entry) -> entriesById.put(docs.get(barcode)[0], entry));
+        
+        // FTS5 flushes its pending terms whenever a row number is lower than the one before,
+        // so rows are deleted and inserted in ascending order. A search row number of 0
+        // marks a product that has no search row yet
+        List<long[]> indexed = docs.values().stream()
+            .filter(doc -> doc[1] != 0)
+            .sorted(Comparator.comparingLong(doc -> doc[1]))
+            .toList();
+        jdbcTemplate.batchUpdate("DELETE FROM product_search WHERE rowid = ?",
+            indexed, indexed.size(), (ps, doc) -> ps.setLong(1, doc[1]));
+        List<long[]> renumbered = new ArrayList<>(barcodes.size());
+        for (SearchEntry entry : byBarcode.values()) {
+            long id = docs.get(entry.barcode())[0];
+            renumbered.add(new long[] {id, searchRowid(entry.score(), id)});
+        }
+        renumbered.sort(Comparator.comparingLong(doc -> doc[1]));
+        jdbcTemplate.batchUpdate("INSERT INTO product_search (rowid, barcode, name, brands, categories) VALUES (?, ?, ?, ?, ?)",
+            renumbered, renumbered.size(), (ps, doc) -> {
+                SearchEntry entry = entriesById.get(doc[0]);
+                Product product = entry.product();
+                ps.setLong(1, doc[1]);
+                ps.setString(2, entry.barcode());
+                ps.setString(3, searchText(product.getProductName(), product.getProductNameDa()));
+                ps.setString(4, searchText(product.getBrands()));
+                ps.setString(5, searchText(product.getCategories()));
+            });
+        jdbcTemplate.batchUpdate("UPDATE product_search_docs SET search_rowid = ? WHERE id = ?",
+            renumbered, renumbered.size(), (ps, doc) -> {
+                ps.setLong(1, doc[1]);
+                ps.setLong(2, doc[0]);
+            });
+    }
+    
+    // Moves the search rows of re-scored products to the numbers matching their new scores
+    private void renumberForSearch(List<ScoreUpdate> updates) {
+        Map<String, long[]> docs = findSearchDocs(updates.stream().map(ScoreUpdate::barcode).toList());
+        // {id, old search_rowid, new search_rowid}
+        List<long[]> moves = new ArrayList<>(docs.size());
+        for (ScoreUpdate update : updates) {
+            long[] doc = docs.get(update.barcode());
+            if (doc != null && doc[1] != searchRowid(update.score(), doc[0])) {
+                moves.add(new long[] {doc[0], doc[1], searchRowid(update.score(), doc[0])});
+            }
+        }
+        // In ascending order, see indexForSearch
+        moves.sort(Comparator.comparingLong(move -> move[2]));
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO product_search (rowid, barcode, name, brands, categories)
+            SELECT ?, barcode, name, brands, categories FROM product_search WHERE rowid = ?
+            """, moves, moves.size(), (ps, move) -> {
+                ps.setLong(1, move[2]);
+                ps.setLong(2, move[1]);
+            });
+        moves.sort(Comparator.comparingLong(move -> move[1]));
+        jdbcTemplate.batchUpdate("DELETE FROM product_search WHERE rowid = ?",
+            moves, moves.size(), (ps, move) -> ps.setLong(1, move[1]));
+        jdbcTemplate.batchUpdate("UPDATE product_search_docs SET search_rowid = ? WHERE id = ?",
+            moves, moves.size(), (ps, move) -> {
+                ps.setLong(1, move[2]);
+                ps.setLong(2, move[0]);
+            });
+    }
+    
+    // {id, search_rowid} by barcode, leaving out products that are not indexed
+    private Map<String, long[]> findSearchDocs(Collection<String> barcodes) {
+        Map<String, long[]> docs = new HashMap<>();
+        if (barcodes.isEmpty()) {
+            return docs;
+        }
+        String placeholders = String.join(",", Collections.nCopies(barcodes.size(), "?"));
+        jdbcTemplate.query("SELECT id, barcode, search_rowid FROM product_search_docs WHERE barcode IN (" + placeholders + ")",
+            rs -> {
+                docs.put(rs.getString("barcode"), new long[] {rs.getLong("id"), rs.getLong("search_rowid")});
+            }, barcodes.toArray());
+        return docs;
+    }
+    
+    /**
+     * The score goes in the high bits, so search rows in rowid order are in score order
+     * and a descending scan can stop after the first matches. Unscored products sort last.
+     */
+    static long searchRowid(Integer score, long id) {
+        long rank = score != null ? Math.min(Math.max(score, 0), (1L << 22) - 2) + 1 : 0;
+        return rank << SEARCH_ID_BITS | id;
+    }
+    
+    // Folded like the satiety matching, so "rugbrod" finds "Rugbrød"
+    private static String searchText(String... parts) {
+        StringBuilder text = new StringBuilder();
+        for (String part : parts) {
+            if (part != null && !part.isBlank()) {
+                if (!text.isEmpty()) {
+                    text.append(' ');
+                }
+                text.append(TextFolding.fold(part));
+            }
+        }
+        return text.toString();
+    }
+    
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+        return count != null ? count : 0;
+    }
+    
+    public Product readProduct(String json) {
+        try {
+            return objectMapper.readValue(json, Product.class);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to read stored product: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private String writeProduct(Product product) {
+        try {
+            return objectMapper.writeValueAsString(product);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Product cannot be serialized", e);
+        }
+    }
+    
+    public record ProductRow(String barcode, String productJson, Integer score, String rating, long fetchedAt) {}
+    
+    private record SearchEntry(String barcode, Integer score, Product product) {}
+    
+    public record CategoryRow(String barcode, String categories, int score) {}
+    
+    // fetchedAt is the row's fetched_at when it was read, the update only applies while it is unchanged
+    public record ScoreUpdate(String barcode, Integer score, String rating, String ratingColor, long fetchedAt) {}
+}
@@ -0,0 +1,215 @@
+package com.volumate.service;
+
+import com.volumate.model.Product;
+import com.volumate.model.RescoreReport;
+import com.volumate.repository.ProductStore;
+import com.volumate.repository.ProductStore.ProductRow;
+import com.volumate.repository.ProductStore.ScoreUpdate;
+import com.volumate.service.VolumeSerenityScoreService.VolumeSerenityScore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-scores every stored product against the active satiety table, for when the table
+ * or its adjustment thresholds change.
+ * <p>
+ * The store is read page by page in barcode order. Workers, one per core by default,
+ * parse and score the pages in parallel, and a single writer updates the score columns
+ * of the rows that changed, one transaction per page. A row stored again while its page
+ * was being scored keeps its newer score and is counted as skipped. At most two pages per
+ * worker are in flight, so memory use does not grow with the catalog. Only one run at a time.
+ */
+@Service
+@Slf4j
+public class CatalogRescorer {
+    
+    private final ProductStore productStore;
+    private final VolumeSerenityScoreService scoreService;
+    private final SatietyIndexService satietyIndexService;
+    private final CategoryTopIndex categoryTopIndex;
+    
+    @Value("${rescore.page-size:1000}")
+    private int pageSize;
+    
+    @Value("${rescore.workers:0}")
+    private int workers;
+    
+    @Value("${rescore.progress-interval:10}")
+    private long progressIntervalSeconds;
+    
+    private volatile Run current;
+    
+    @Autowired
+    public CatalogRescorer(ProductStore productStore, VolumeSerenityScoreService scoreService,
+                           SatietyIndexService satietyIndexService, CategoryTopIndex categoryTopIndex) {
+        this.productStore = productStore;
+        this.scoreService = scoreService;
+        this.satietyIndexService = satietyIndexService;
+        this.categoryTopIndex = categoryTopIndex;
+    }
+    
+    /**
+     * Starts re-scoring in the background and returns its initial status.
+     *
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public synchronized RescoreReport start() {
+        if (current != null && current.state == RescoreReport.State.RUNNING) {
+            throw new IllegalStateException("Re-scoring is already running");
+        }
+        Run run = new Run(satietyIndexService.getTableVersion(), productStore.count());
+        current = run;
+        Thread thread = new Thread(() -> execute(run), "catalog-rescorer");
+        thread.setDaemon(true);
+        thread.start();
+        return run.report();
+    }
+    
+    public RescoreReport getStatus() {
+        Run run = current;
+        return run != null ? run.report() : new RescoreReport(RescoreReport.State.IDLE, null, 0, 0, 0, 0, 0, 0, null);
+    }
+    
+    private void execute(Run run) {
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        log.info("Re-scoring {} stored products against satiety table version {} with {} workers",
+            run.total, run.tableVersion, workerCount);
+        
+        ExecutorService scorers = Executors.newFixedThreadPool(workerCount);
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "catalog-rescorer-writer"));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> logProgress(run.report()),
+            progressIntervalSeconds, progressIntervalSeconds, TimeUnit.SECONDS);
+        Semaphore inFlight = new Semaphore(workerCount * 2);
+        try {
+            String after = null;
+            List<ProductRow> page;
+            while (!(page = productStore.findPageAfter(after, pageSize)).isEmpty()) {
+                after = page.get(page.size() - 1).barcode();
+                inFlight.acquire();
+                List<ProductRow> rows = page;
+                CompletableFuture.supplyAsync(() -> score(rows, run), scorers)
+                    .thenAcceptAsync(scored -> store(scored, run), writer)
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            log.error("Re-scoring a page of {} products failed: {}", rows.size(), error.getMessage());
+                            run.failed.addAndGet(rows.size());
+                        }
+                        inFlight.release();
+                    });
+            }
+            // Wait for the pages still in flight
+            inFlight.acquire(workerCount * 2);
+            run.finish(run.failed.get() == 0 ? RescoreReport.State.COMPLETED : RescoreReport.State.FAILED, null);
+        } catch (Exception e) {
+            log.error("Re-scoring stopped: {}", e.getMessage());
+            run.finish(RescoreReport.State.FAILED, e.getMessage());
+        } finally {
+            scorers.shutdown();
+            writer.shutdown();
+            reporter.shutdownNow();
+        }
+        
+        RescoreReport report = run.report();
+        log.info("Re-scoring finished ({}): {} products scanned, {} updated, {} skipped, {} failed in {} ms ({} products/s)",
+            report.getState(), report.getScanned(), report.getUpdated(), report.getSkipped(), report.getFailed(),
+            report.getElapsedMillis(), String.format("%.0f", report.getProductsPerSecond()));
+    }
+    
+    private ScoredPage score(List<ProductRow> rows, Run run) {
+        List<ProductRow> parsedRows = new ArrayList<>(rows.size());
+        List<Product> products = new ArrayList<>(rows.size());
+        for (ProductRow row : rows) {
+            Product product = productStore.readProduct(row.productJson());
+            if (product != null) {
+                parsedRows.add(row);
+                products.add(product);
+            }
+        }
+        List<VolumeSerenityScore> scores = scoreService.calculateScores(products);
+        List<Scored> scored = new ArrayList<>(scores.size());
+        List<ScoreUpdate> updates = new ArrayList<>();
+        for (int i = 0; i < scores.size(); i++) {
+            ProductRow row = parsedRows.get(i);
+            VolumeSerenityScore score = scores.get(i);
+            scored.add(new Scored(row.barcode(), products.get(i).getCategories(), score.getScore()));
+            // Unchanged rows are not rewritten
+            if (!Objects.equals(row.score(), score.getScore()) || !Objects.equals(row.rating(), score.getRating())) {
+                updates.add(new ScoreUpdate(row.barcode(), score.getScore(), score.getRating(), score.getRatingColor(),
+                    row.fetchedAt()));
+            }
+        }
+        run.scanned.addAndGet(rows.size());
+        return new ScoredPage(scored, updates, rows.size() - parsedRows.size());
+    }
+    
+    // Counted only here, once the page is written, so a page that fails is counted once
+    private void store(ScoredPage page, Run run) {
+        Set<String> changed = new HashSet<>(productStore.updateScores(page.updates()));
+        // Every product, changed or not, so category top lists thinned out by lower scores fill up again;
+        // a product stored meanwhile was already recorded with its newer score
+        for (Scored scored : page.scored()) {
+            if (!changed.contains(scored.barcode())) {
+                categoryTopIndex.record(scored.barcode(), scored.categories(), scored.score());
+            }
+        }
+        run.updated.addAndGet(page.updates().size() - changed.size());
+        run.skipped.addAndGet(changed.size());
+        run.failed.addAndGet(page.unreadable());
+    }
+    
+    private record Scored(String barcode, String categories, Integer score) {}
+    
+    private record ScoredPage(List<Scored> scored, List<ScoreUpdate> updates, int unreadable) {}
+    
+    private void logProgress(RescoreReport report) {
+        log.info("Re-scoring progress: {} of {} products scanned ({}%), {} updated, {} skipped, {} failed ({} products/s)",
+            report.getScanned(), report.getTotal(), String.format("%.1f", report.getPercentComplete()),
+            report.getUpdated(), report.getSkipped(), report.getFailed(), String.format("%.0f", report.getProductsPerSecond()));
+    }
+    
+    private static class Run {
+        private final String tableVersion;
+        private final long total;
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong updated = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile RescoreReport.State state = RescoreReport.State.RUNNING;
+        private volatile long finishedAt;
+        private volatile String error;
+        
+        Run(String tableVersion, long total) {
+            this.tableVersion = tableVersion;
+            this.total = total;
+        }
+        
+        void finish(RescoreReport.State state, String error) {
+            this.finishedAt = System.currentTimeMillis();
+            this.error = error;
+            this.state = state;
+        }
+        
+        RescoreReport report() {
+            long end = state == RescoreReport.State.RUNNING ? System.currentTimeMillis() : finishedAt;
+            return new RescoreReport(state, tableVersion, total, scanned.get(), updated.get(), skipped.get(), failed.get(),
+                end - startedAt, error);
+        }
+    }
+}
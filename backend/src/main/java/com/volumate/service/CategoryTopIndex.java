@@ -0,0 +1,193 @@
+package com.volumate.service;
+
+import com.volumate.repository.ProductStore;
+import com.volumate.repository.ProductStore.CategoryRow;
+import com.volumate.util.TextFolding;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The best scored products of every category, for suggesting more filling alternatives.
+ * <p>
+ * Each category keeps its {@code alternatives.per-category} highest Volume Serenity
+ * scores. Products enter as they are stored, imported or re-scored, replacing their
+ * previous entry; nothing is rebuilt. A product that leaves a category, or loses its
+ * score, is taken out of the lists it held a place in. The index is filled from the
+ * store once at startup. Callers still check entries against the store, as a product
+ * changed elsewhere is only seen here once it is recorded again.
+ */
+@Component
+@Slf4j
+public class CategoryTopIndex {
+
+    private final ProductStore productStore;
+    private final Map<String, CategoryTop> categories = new ConcurrentHashMap<>();
+    // The categories each product holds a place in, guarded by this; bounded by the list sizes
+    private final Map<String, Set<String>> placements = new HashMap<>();
+
+    @Value("${alternatives.per-category:100}")
+    private int perCategory;
+
+    @Value("${alternatives.warm-up.page-size:5000}")
+    private int warmUpPageSize;
+
+    @Autowired
+    public CategoryTopIndex(ProductStore productStore) {
+        this.productStore = productStore;
+    }
+
+    /**
+     * Records a product's current score in each of its categories and takes it out of the
+     * ones it is no longer in. A null score takes it out everywhere.
+     */
+    public synchronized void record(String barcode, String productCategories, Integer score) {
+        List<String> current = score != null ? categoriesOf(productCategories) : List.of();
+        Set<String> previous = placements.remove(barcode);
+        if (previous != null) {
+            for (String category : previous) {
+                if (!current.contains(category)) {
+                    categories.get(category).remove(barcode);
+                }
+            }
+        }
+        Set<String> placed = new HashSet<>();
+        for (String category : current) {
+            String dropped = categories.computeIfAbsent(category, key -> new CategoryTop()).offer(barcode, score, perCategory);
+            if (dropped == null) {
+                placed.add(category);
+            } else if (!dropped.equals(barcode)) {
+                placed.add(category);
+                unplace(dropped, category);
+            }
+        }
+        if (!placed.isEmpty()) {
+            placements.put(barcode, placed);
+        }
+    }
+    
+    private void unplace(String barcode, String category) {
+        Set<String> placed = placements.get(barcode);
+        if (placed != null && placed.remove(category) && placed.isEmpty()) {
+            placements.remove(barcode);
+        }
+    }
+    
+    /**
+     * Up to {@code limit} products of the category scoring strictly higher than
+     * {@code than} (any score when null), best first, leaving out {@code exclude}.
+     */
+    public List<String> better(String category, Integer than, String exclude, int limit) {
+        CategoryTop top = categories.get(category);
+        return top != null ? top.better(than, exclude, limit) : List.of();
+    }
+
+    /**
+     * A product's categories, folded and without language prefixes, most specific last
+     * as OpenFoodFacts lists them.
+     */
+    public static List<String> categoriesOf(String productCategories) {
+        if (productCategories == null) {
+            return List.of();
+        }
+        List<String> folded = new ArrayList<>();
+        for (String category : productCategories.split(",")) {
+            String key = TextFolding.fold(category);
+            if (!key.isEmpty() && !folded.contains(key)) {
+                folded.add(key);
+            }
+        }
+        return folded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void warmUp() {
+        Thread loader = new Thread(() -> {
+            long start = System.currentTimeMillis();
+            long loaded = 0;
+            try {
+                List<CategoryRow> page;
+                String after = null;
+                while (!(page = productStore.findScoredCategoriesAfter(after, warmUpPageSize)).isEmpty()) {
+                    for (CategoryRow row : page) {
+                        record(row.barcode(), row.categories(), row.score());
+                    }
+                    loaded += page.size();
+                    after = page.get(page.size() - 1).barcode();
+                }
+                log.info("Loaded the best scored products of {} categories from {} stored products in {} ms",
+                    categories.size(), loaded, System.currentTimeMillis() - start);
+            } catch (RuntimeException e) {
+                log.error("Loading category top lists stopped after {} products - {}", loaded, e.getMessage());
+            }
+        }, "category-top-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private record Ranked(String barcode, int score) {}
+
+    // Best score first; equal scores by barcode so entries stay distinct
+    private static final Comparator<Ranked> BEST_FIRST =
+        Comparator.comparingInt(Ranked::score).reversed().thenComparing(Ranked::barcode);
+
+    private static final class CategoryTop {
+
+        private final TreeSet<Ranked> ranked = new TreeSet<>(BEST_FIRST);
+        private final Map<String, Ranked> byBarcode = new HashMap<>();
+
+        // The barcode that lost its place: this one if it did not make the list, another
+        // one pushed out by it, or null
+        synchronized String offer(String barcode, int score, int capacity) {
+            Ranked entry = new Ranked(barcode, score);
+            Ranked previous = byBarcode.remove(barcode);
+            if (previous != null) {
+                ranked.remove(previous);
+            }
+            if (ranked.size() >= capacity && BEST_FIRST.compare(entry, ranked.last()) > 0) {
+                return barcode;
+            }
+            ranked.add(entry);
+            byBarcode.put(barcode, entry);
+            if (ranked.size() > capacity) {
+                String pushedOut = ranked.pollLast().barcode();
+                byBarcode.remove(pushedOut);
+                return pushedOut;
+            }
+            return null;
+        }
+
+        synchronized void remove(String barcode) {
+            Ranked previous = byBarcode.remove(barcode);
+            if (previous != null) {
+                ranked.remove(previous);
+            }
+        }
+
+        synchronized List<String> better(Integer than, String exclude, int limit) {
+            List<String> barcodes = new ArrayList<>(limit);
+            for (Ranked entry : ranked) {
+                if (barcodes.size() >= limit || (than != null && entry.score() <= than)) {
+                    break;
+                }
+                if (!entry.barcode().equals(exclude)) {
+                    barcodes.add(entry.barcode());
+                }
+            }
+            return barcodes;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.volumate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+
+/**
+ * Runs an offline import at startup when started with {@code --importer.file=<export>}.
+ */
+@Component
+@ConditionalOnProperty("importer.file")
+@Slf4j
+public class ImportRunner implements ApplicationRunner {
+    
+    private final OpenFoodFactsImporter importer;
+    
+    @Value("${importer.file}")
+    private String file;
+    
+    @Autowired
+    public ImportRunner(OpenFoodFactsImporter importer) {
+        this.importer = importer;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        importer.importFile(Path.of(file));
+    }
+}
@@ -0,0 +1,112 @@
+package com.volumate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Remembers barcodes OpenFoodFacts had no product for, and barcodes whose lookup
+ * failed upstream, so repeated scans are answered without another round trip.
+ * <p>
+ * "Not found" entries are blocked for {@code not-found-ttl}, doubling with every
+ * consecutive miss up to {@code max-ttl} when exponential backoff is enabled.
+ * Upstream errors are only blocked for the much shorter {@code error-ttl}.
+ * Entries are kept for {@code max-ttl} so the miss count survives between blocks.
+ */
+@Component
+@Slf4j
+public class NegativeProductCache {
+    
+    public enum Kind { NOT_FOUND, UPSTREAM_ERROR }
+    
+    private final Cache<String, Entry> entries;
+    
+    @Value("${cache.negative.not-found-ttl:300}")
+    private long notFoundTtlSeconds;
+    
+    @Value("${cache.negative.error-ttl:30}")
+    private long errorTtlSeconds;
+    
+    @Value("${cache.negative.exponential-backoff:true}")
+    private boolean exponentialBackoff;
+    
+    private final long maxTtlSeconds;
+    
+    public NegativeProductCache(MeterRegistry meterRegistry,
+                                @Value("${cache.negative.max-size:10000}") int maxSize,
+                                @Value("${cache.negative.max-ttl:86400}") long maxTtlSeconds) {
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.entries = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(maxTtlSeconds))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "missingProducts");
+    }
+    
+    /**
+     * Returns the blocking entry for the barcode, or null if it should be looked up.
+     */
+    public Entry lookup(String barcode) {
+        Entry entry = entries.getIfPresent(barcode);
+        if (entry == null || !entry.isBlocking(System.currentTimeMillis())) {
+            return null;
+        }
+        return entry;
+    }
+    
+    public void recordNotFound(String barcode) {
+        Entry entry = entries.asMap().compute(barcode, (key, previous) -> {
+            int misses = previous != null ? previous.misses + 1 : 1;
+            long ttl = notFoundTtlSeconds;
+            if (exponentialBackoff) {
+                ttl = notFoundTtlSeconds << Math.min(misses - 1, 30);
+            }
+            ttl = Math.min(ttl, maxTtlSeconds);
+            return new Entry(Kind.NOT_FOUND, misses, System.currentTimeMillis() + ttl * 1000, null);
+        });
+        log.debug("Negative-cached barcode {} as not found for {} consecutive misses", barcode, entry.misses);
+    }
+    
+    public void recordUpstreamError(String barcode, Throwable error) {
+        // Keep the not-found history; an outage says nothing about whether the product exists
+        entries.asMap().compute(barcode, (key, previous) -> {
+            int misses = previous != null ? previous.misses : 0;
+            long blockedUntil = System.currentTimeMillis() + Math.min(errorTtlSeconds, maxTtlSeconds) * 1000;
+            return new Entry(Kind.UPSTREAM_ERROR, misses, blockedUntil, error.getMessage());
+        });
+        log.debug("Negative-cached barcode {} after upstream error: {}", barcode, error.getMessage());
+    }
+    
+    public void recordFound(String barcode) {
+        entries.invalidate(barcode);
+    }
+    
+    public static class Entry {
+        private final Kind kind;
+        private final int misses;
+        private final long blockedUntil;
+        private final String errorMessage;
+        
+        Entry(Kind kind, int misses, long blockedUntil, String errorMessage) {
+            this.kind = kind;
+            this.misses = misses;
+            this.blockedUntil = blockedUntil;
+            this.errorMessage = errorMessage;
+        }
+        
+        public Kind getKind() { return kind; }
+        public int getMisses() { return misses; }
+        public String getErrorMessage() { return errorMessage; }
+        
+        public boolean isBlocking(long now) {
+            return now < blockedUntil;
+        }
+    }
+}
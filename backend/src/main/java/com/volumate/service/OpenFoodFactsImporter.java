@@ -0,0 +1,358 @@
+package com.volumate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volumate.model.ImportReport;
+import com.volumate.model.Nutriments;
+import com.volumate.model.Product;
+import com.volumate.model.StoredProduct;
+import com.volumate.repository.ProductStore;
+import com.volumate.service.VolumeSerenityScoreService.VolumeSerenityScore;
+import com.volumate.util.Gtin;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Preloads the product store from an OpenFoodFacts data export.
+ * <p>
+ * Supports the JSONL dump (one product object per line) and the tab-separated CSV
+ * export, optionally gzip-compressed. The file is streamed line by line: the reading
+ * thread cuts it into chunks, a pool of workers parses and scores the chunks in
+ * parallel, and a single writer stores each chunk in one transaction. After every
+ * chunk the writer records the last contiguously stored line in a checkpoint file,
+ * so an interrupted import resumes where it stopped.
+ */
+@Service
+@Slf4j
+public class OpenFoodFactsImporter {
+    
+    private static final List<StoredProduct> END_OF_FILE = List.of();
+    
+    private final ProductStore productStore;
+    private final VolumeSerenityScoreService scoreService;
+    private final CategoryTopIndex categoryTopIndex;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${importer.chunk-size:1000}")
+    private int chunkSize;
+    
+    @Value("${importer.workers:0}")
+    private int workers;
+    
+    @Value("${importer.progress-interval:10}")
+    private long progressIntervalSeconds;
+    
+    @Value("${product.nutriments.extra-keys:}")
+    private Set<String> extraNutrimentKeys;
+    
+    @Autowired
+    public OpenFoodFactsImporter(ProductStore productStore,
+                                 VolumeSerenityScoreService scoreService,
+                                 CategoryTopIndex categoryTopIndex,
+                                 ObjectMapper objectMapper) {
+        this.productStore = productStore;
+        this.scoreService = scoreService;
+        this.categoryTopIndex = categoryTopIndex;
+        this.objectMapper = objectMapper;
+    }
+    
+    public ImportReport importFile(Path file) throws IOException, InterruptedException {
+        Path checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+        long resumeFrom = readCheckpoint(checkpointFile);
+        boolean csv = isCsv(file);
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        
+        log.info("Importing {} ({}) with {} workers, resuming from line {}",
+            file, csv ? "CSV" : "JSONL", workerCount, resumeFrom);
+        
+        Progress progress = new Progress(System.currentTimeMillis());
+        // The caller runs chunks itself when all workers are busy, which bounds the memory held in flight
+        ThreadPoolExecutor parsers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(workerCount * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        BlockingQueue<ParsedChunk> parsedChunks = new ArrayBlockingQueue<>(workerCount * 2);
+        ChunkWriter writer = new ChunkWriter(parsedChunks, checkpointFile, resumeFrom, progress);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> logProgress(progress), progressIntervalSeconds, progressIntervalSeconds, TimeUnit.SECONDS);
+        writer.start();
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(file), StandardCharsets.UTF_8), 1 << 16)) {
+            Map<String, Integer> columns = csv ? readCsvHeader(reader.readLine()) : null;
+            long lineNumber = 0;
+            long chunkStart = resumeFrom;
+            List<String> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= resumeFrom) {
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() == chunkSize) {
+                    submit(parsers, parsedChunks, chunk, chunkStart, columns, progress);
+                    chunkStart = lineNumber;
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(parsers, parsedChunks, chunk, chunkStart, columns, progress);
+            }
+        } finally {
+            parsers.shutdown();
+            parsers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            parsedChunks.put(new ParsedChunk(-1, 0, END_OF_FILE, null));
+            writer.join();
+            reporter.shutdownNow();
+        }
+        
+        if (writer.failure != null) {
+            throw new IOException("Import of " + file + " stopped at line " + writer.checkpoint, writer.failure);
+        }
+        
+        ImportReport report = new ImportReport(file.toString(), progress.linesRead.get(), progress.stored.get(),
+            progress.skipped.get(), resumeFrom, System.currentTimeMillis() - progress.startedAt);
+        log.info("Import of {} finished: {} lines read, {} products stored, {} skipped in {} ms ({} products/s)",
+            file, report.getLinesRead(), report.getProductsStored(), report.getLinesSkipped(),
+            report.getElapsedMillis(), String.format("%.0f", report.getProductsPerSecond()));
+        return report;
+    }
+    
+    private void submit(ThreadPoolExecutor parsers, BlockingQueue<ParsedChunk> parsedChunks, List<String> lines,
+                        long firstLine, Map<String, Integer> columns, Progress progress) {
+        parsers.execute(() -> {
+            List<StoredProduct> products = new ArrayList<>(lines.size());
+            Throwable error = null;
+            try {
+                Instant now = Instant.now();
+                for (String line : lines) {
+                    StoredProduct product = parseAndScore(line, columns, now);
+                    if (product != null) {
+                        products.add(product);
+                    } else {
+                        progress.skipped.incrementAndGet();
+                    }
+                }
+                progress.linesRead.addAndGet(lines.size());
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                // Always handed to the writer, which otherwise could never checkpoint past this chunk
+                try {
+                    parsedChunks.put(new ParsedChunk(firstLine, lines.size(), products, error));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+    
+    // Null if the line is skipped: unreadable, a barcode that fails its check digit, or a product that cannot be scored
+    private StoredProduct parseAndScore(String line, Map<String, Integer> columns, Instant now) {
+        try {
+            Product product = columns != null ? parseCsvLine(line, columns) : parseJsonLine(line);
+            if (product == null) {
+                return null;
+            }
+            // Stored under the canonical code lookups use; a code failing its check digit can never be looked up
+            product.setBarcode(Gtin.canonicalize(product.getBarcode()));
+            VolumeSerenityScore score = scoreService.calculateScore(product);
+            // Dump rows are not kept as raw payload; a single product row can be tens of kilobytes
+            return new StoredProduct(product.getBarcode(), null, product,
+                score.getScore(), score.getRating(), score.getRatingColor(), now);
+        } catch (RuntimeException e) {
+            log.debug("Skipping line that could not be imported: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private Product parseJsonLine(String line) {
+        try {
+            return objectMapper.readValue(line, Product.class);
+        } catch (IOException e) {
+            log.debug("Skipping unreadable JSONL line: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private Map<String, Integer> readCsvHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV export is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        String[] names = header.split("\t", -1);
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i], i);
+        }
+        return columns;
+    }
+    
+    private Product parseCsvLine(String line, Map<String, Integer> columns) {
+        String[] values = line.split("\t", -1);
+        Product product = new Product();
+        product.setBarcode(column(values, columns, "code"));
+        product.setProductName(column(values, columns, "product_name"));
+        product.setGenericName(column(values, columns, "generic_name"));
+        product.setBrands(column(values, columns, "brands"));
+        product.setCategories(column(values, columns, "categories"));
+        product.setImage_url(column(values, columns, "image_url"));
+        product.setIngredientsText(column(values, columns, "ingredients_text"));
+        product.setNutriscoreGrade(column(values, columns, "nutriscore_grade"));
+        product.setNovaGroup(column(values, columns, "nova_group"));
+        
+        Nutriments nutriments = new Nutriments();
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            if (column.getKey().endsWith("_100g") && column.getValue() < values.length) {
+                String value = values[column.getValue()];
+                if (!value.isEmpty()) {
+                    try {
+                        nutriments.put(column.getKey(), Double.parseDouble(value), extraNutrimentKeys);
+                    } catch (NumberFormatException e) {
+                        // Leave malformed nutrient values out
+                    }
+                }
+            }
+        }
+        product.setNutriments(nutriments);
+        return product;
+    }
+    
+    private String column(String[] values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.length || values[index].isEmpty()) {
+            return null;
+        }
+        return values[index];
+    }
+    
+    private InputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+    
+    private boolean isCsv(Path file) {
+        String name = file.getFileName().toString().replaceFirst("\\.gz$", "");
+        return name.endsWith(".csv") || name.endsWith(".tsv");
+    }
+    
+    private long readCheckpoint(Path checkpointFile) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(checkpointFile).trim());
+    }
+    
+    private void logProgress(Progress progress) {
+        long elapsed = Math.max(1, System.currentTimeMillis() - progress.startedAt);
+        log.info("Import progress: {} lines read, {} products stored, {} skipped ({} products/s)",
+            progress.linesRead.get(), progress.stored.get(), progress.skipped.get(),
+            progress.stored.get() * 1000 / elapsed);
+    }
+    
+    // A chunk whose worker failed carries the error instead of its products
+    private record ParsedChunk(long firstLine, int lineCount, List<StoredProduct> products, Throwable error) {}
+    
+    private static class Progress {
+        private final long startedAt;
+        private final AtomicLong linesRead = new AtomicLong();
+        private final AtomicLong stored = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        
+        Progress(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+    
+    /**
+     * Stores parsed chunks as they arrive and advances the checkpoint over the
+     * contiguous prefix of stored chunks, since workers finish out of order.
+     */
+    private class ChunkWriter extends Thread {
+        private final BlockingQueue<ParsedChunk> parsedChunks;
+        private final Path checkpointFile;
+        private final Progress progress;
+        // First line to line count of the chunks stored ahead of the checkpoint
+        private final TreeMap<Long, Integer> storedAhead = new TreeMap<>();
+        private long checkpoint;
+        private volatile Throwable failure;
+        
+        ChunkWriter(BlockingQueue<ParsedChunk> parsedChunks, Path checkpointFile, long checkpoint, Progress progress) {
+            super("product-importer-writer");
+            this.parsedChunks = parsedChunks;
+            this.checkpointFile = checkpointFile;
+            this.checkpoint = checkpoint;
+            this.progress = progress;
+        }
+        
+        @Override
+        public void run() {
+            try {
+                ParsedChunk chunk;
+                while ((chunk = parsedChunks.take()).products() != END_OF_FILE) {
+                    // After a failure keep draining so the workers never block on a full queue
+                    if (failure == null) {
+                        store(chunk);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        private void store(ParsedChunk chunk) {
+            if (chunk.error() != null) {
+                log.error("Import worker failed on the chunk from line {}, resume from checkpoint {}: {}",
+                    chunk.firstLine(), checkpoint, chunk.error().toString());
+                failure = chunk.error();
+                return;
+            }
+            try {
+                productStore.saveAll(chunk.products());
+                for (StoredProduct stored : chunk.products()) {
+                    categoryTopIndex.record(stored.getBarcode(), stored.getProduct().getCategories(), stored.getScore());
+                }
+                progress.stored.addAndGet(chunk.products().size());
+                storedAhead.put(chunk.firstLine(), chunk.lineCount());
+                advanceCheckpoint();
+            } catch (Exception e) {
+                log.error("Import writer failed, resume from checkpoint {}: {}", checkpoint, e.getMessage());
+                failure = e;
+            }
+        }
+        
+        private void advanceCheckpoint() throws IOException {
+            long previous = checkpoint;
+            while (!storedAhead.isEmpty() && storedAhead.firstKey() == checkpoint) {
+                checkpoint += storedAhead.pollFirstEntry().getValue();
+            }
+            if (checkpoint != previous) {
+                Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+                Files.writeString(temp, Long.toString(checkpoint));
+                Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+    }
+}
@@ -2,8 +2,22 @@ package com.volumate.service;
 
 import com.volumate.model.OpenFoodFactsResponse;
 import com.volumate.model.Product;
+import com.volumate.model.StoredProduct;
+import com.volumate.util.SingleFlight;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.codec.DecodingException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
@@ -12,16 +26,31 @@ import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Service
 @Slf4j
 public class OpenFoodFactsService {
     
     private final WebClient webClient;
+    private final NegativeProductCache negativeCache;
+    private final ProductStoreService productStoreService;
+    private final CacheManager cacheManager;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final SingleFlight<String, Product> upstreamFetches = new SingleFlight<>();
+    private final SingleFlight<String, Product> refreshes = new SingleFlight<>();
     
-    @Value("${external.openfoodfacts.base-url}")
-    private String baseUrl;
+    private static final String PRODUCT_FIELDS = productFields();
     
     @Value("${external.openfoodfacts.timeout}")
     private int timeout;
@@ -29,51 +58,156 @@ public class OpenFoodFactsService {
     @Value("${external.openfoodfacts.retry-attempts}")
     private int retryAttempts;
     
-    public OpenFoodFactsService() {
-        this.webClient = WebClient.builder()
-            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(2 * 1024 * 1024)) // 2MB
-            .build();
+    @Autowired
+    public OpenFoodFactsService(WebClient openFoodFactsWebClient, NegativeProductCache negativeCache,
+                                ProductStoreService productStoreService, CacheManager cacheManager,
+                                CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry) {
+        this.webClient = openFoodFactsWebClient;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("openfoodfacts");
+        this.bulkhead = bulkheadRegistry.bulkhead("openfoodfacts");
+        this.negativeCache = negativeCache;
+        this.productStoreService = productStoreService;
+        this.cacheManager = cacheManager;
     }
     
-    @Cacheable(value = "products", key = "#barcode")
+    /**
+     * Resolves a product, completing empty when OpenFoodFacts does not know the barcode.
+     * When OpenFoodFacts cannot be asked (circuit open, bulkhead full, errors) a stored copy
+     * of any age is served flagged as possibly stale; without one the call fails fast with
+     * {@link UpstreamUnavailableException}.
+     */
+    @Cacheable(value = "products", key = "#barcode", unless = "#result == null || #result.possiblyStale")
     public Mono<Product> getProductByBarcode(String barcode) {
+        return Mono.defer(() -> {
+            NegativeProductCache.Entry miss = negativeCache.lookup(barcode);
+            if (miss != null) {
+                log.debug("Negative cache hit for barcode: {} ({})", barcode, miss.getKind());
+                return miss.getKind() == NegativeProductCache.Kind.NOT_FOUND
+                    ? Mono.<Product>empty()
+                    : serveDegraded(barcode, new UpstreamUnavailableException(
+                        "OpenFoodFacts lookup recently failed: " + miss.getErrorMessage()));
+            }
+            // Cache misses for the same barcode arriving together share one store read and upstream request
+            return upstreamFetches.execute(barcode, () -> productStoreService.find(barcode)
+                .map(stored -> {
+                    if (productStoreService.isStale(stored)) {
+                        refreshInBackground(barcode);
+                    }
+                    return stored.getProduct();
+                })
+                .switchIfEmpty(Mono.defer(() -> fetchProduct(barcode)))
+                .doOnSuccess(product -> {
+                    if (product != null) {
+                        negativeCache.recordFound(barcode);
+                    } else {
+                        negativeCache.recordNotFound(barcode);
+                    }
+                })
+                .doOnError(error -> negativeCache.recordUpstreamError(barcode, error))
+                .onErrorResume(UpstreamUnavailableException.class, error -> serveDegraded(barcode, error)));
+        });
+    }
+    
+    private Mono<Product> serveDegraded(String barcode, UpstreamUnavailableException error) {
+        return productStoreService.findIgnoringAge(barcode)
+            .map(stored -> {
+                log.warn("Serving possibly stale product for barcode: {} - {}", barcode, error.getMessage());
+                Product product = stored.getProduct();
+                product.setPossiblyStale(true);
+                return product;
+            })
+            .switchIfEmpty(Mono.error(error));
+    }
+    
+    /**
+     * Returns the products already held in the product cache or store, without calling
+     * OpenFoodFacts. Store hits are copied into the cache.
+     */
+    public Mono<Map<String, Product>> getKnownProducts(Collection<String> barcodes) {
+        Cache cache = cacheManager.getCache("products");
+        Map<String, Product> known = new HashMap<>();
+        List<String> uncached = new ArrayList<>();
+        for (String barcode : barcodes) {
+            CompletableFuture<?> cached = cache != null ? cache.retrieve(barcode) : null;
+            Object product = cached != null ? cached.getNow(null) : null;
+            if (product instanceof Product) {
+                known.put(barcode, (Product) product);
+            } else {
+                uncached.add(barcode);
+            }
+        }
+        if (uncached.isEmpty()) {
+            return Mono.just(known);
+        }
+        return productStoreService.findAll(uncached)
+            .map(stored -> {
+                stored.forEach((barcode, storedProduct) -> {
+                    known.put(barcode, storedProduct.getProduct());
+                    if (cache != null) {
+                        cache.put(barcode, storedProduct.getProduct());
+                    }
+                    if (productStoreService.isStale(storedProduct)) {
+                        refreshInBackground(barcode);
+                    }
+                });
+                return known;
+            });
+    }
+    
+    /**
+     * Fetches a fresh copy from OpenFoodFacts, bypassing the cache and store. Concurrent
+     * refreshes of the same barcode share one request. Used by the product cache when
+     * an entry passes its soft TTL.
+     */
+    public Mono<Product> refreshProduct(String barcode) {
+        log.debug("Refreshing stale product with barcode: {}", barcode);
+        return refreshes.execute(barcode, () -> fetchProduct(barcode));
+    }
+    
+    private void refreshInBackground(String barcode) {
+        Cache cache = cacheManager.getCache("products");
+        refreshProduct(barcode).subscribe(
+            product -> {
+                if (cache != null) {
+                    cache.put(barcode, product);
+                }
+            },
+            // Keep serving the stale copy; the next read past the soft TTL tries again
+            error -> log.warn("Background refresh failed for barcode: {} - {}", barcode, error.getMessage()));
+    }
+    
+    private Mono<Product> fetchProduct(String barcode) {
         log.info("Fetching product with barcode: {}", barcode);
         
-        String url = String.format("%s/product/%s.json", baseUrl, barcode);
-        log.info("OpenFoodFacts API URL: {}", url);
-        
         return webClient.get()
-            .uri(url)
+            .uri("/product/{barcode}.json?fields={fields}", barcode, PRODUCT_FIELDS)
             .retrieve()
-            .bodyToMono(String.class)
-            .doOnNext(rawJson -> log.info("Raw OpenFoodFacts response: {}", rawJson))
-            .doOnNext(rawJson -> {
-                try {
-                    ObjectMapper mapper = new ObjectMapper();
-                    OpenFoodFactsResponse response = mapper.readValue(rawJson, OpenFoodFactsResponse.class);
-                    if (response.getProduct() != null) {
-                        log.info("Product image URL: {}", response.getProduct().getImage_url());
-                    }
-                } catch (Exception e) {
-                    log.error("Error parsing response for logging: {}", e.getMessage());
-                }
-            })
-            .map(rawJson -> {
-                try {
-                    ObjectMapper mapper = new ObjectMapper();
-                    OpenFoodFactsResponse response = mapper.readValue(rawJson, OpenFoodFactsResponse.class);
-                    return processResponse(response);
-                } catch (Exception e) {
-                    log.error("Failed to parse OpenFoodFacts response: {}", e.getMessage());
-                    return null;
+            // Decoded once, straight from the network buffers
+            .bodyToMono(OpenFoodFactsResponse.class)
+            // OpenFoodFacts answers unknown barcodes with a 404
+            .onErrorResume(WebClientResponseException.NotFound.class, error -> Mono.empty())
+            .timeout(Duration.ofMillis(timeout))
+            // Every attempt counts towards the breaker; while it is open, or while the bulkhead
+            // is full, attempts fail immediately instead of queueing up behind a slow upstream
+            .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+            .transformDeferred(BulkheadOperator.of(bulkhead))
+            .onErrorMap(DecodingException.class,
+                error -> new UpstreamUnavailableException("Failed to parse OpenFoodFacts response", error))
+            .mapNotNull(response -> {
+                Product product = processResponse(response);
+                if (product != null) {
+                    log.debug("Product image URL: {}", product.getImage_url());
+                    productStoreService.saveAsync(barcode, response, product);
                 }
+                return product;
             })
-            .timeout(Duration.ofMillis(timeout))
             .retryWhen(Retry.fixedDelay(retryAttempts, Duration.ofSeconds(1))
                 .filter(this::shouldRetry)
                 .doBeforeRetry(retrySignal -> 
                     log.warn("Retrying request for barcode: {} (attempt {})", 
                         barcode, retrySignal.totalRetries() + 1)))
+            .onErrorMap(error -> !(error instanceof UpstreamUnavailableException),
+                error -> new UpstreamUnavailableException(error.getMessage(), error))
             .doOnSuccess(product -> {
                 if (product != null) {
                     log.info("Successfully fetched product: {}", product.getProductName());
@@ -85,12 +219,32 @@ public class OpenFoodFactsService {
                 log.error("Error fetching product with barcode: {} - {}", barcode, error.getMessage()));
     }
     
+    /**
+     * The OpenFoodFacts fields {@link Product} maps, requested through the {@code fields=} projection
+     * so images, packaging and per-language blobs never cross the wire.
+     */
+    private static String productFields() {
+        return Arrays.stream(Product.class.getDeclaredFields())
+            .map(field -> field.getAnnotation(JsonProperty.class))
+            .filter(Objects::nonNull)
+            .map(JsonProperty::value)
+            .collect(Collectors.joining(","));
+    }
+    
     private boolean shouldRetry(Throwable throwable) {
         // Retry on network errors and 5xx server errors
         if (throwable instanceof WebClientResponseException) {
             WebClientResponseException wcre = (WebClientResponseException) throwable;
             return wcre.getStatusCode().is5xxServerError();
         }
+        // A malformed body will not get better by asking again
+        if (throwable instanceof UpstreamUnavailableException) {
+            return false;
+        }
+        // Do not hammer an upstream the breaker or bulkhead is protecting
+        if (throwable instanceof CallNotPermittedException || throwable instanceof BulkheadFullException) {
+            return false;
+        }
         // Retry on other exceptions (network issues, timeouts, etc.)
         return true;
     }
@@ -120,4 +274,4 @@ public class OpenFoodFactsService {
         
         return product;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,177 @@
+package com.volumate.service;
+
+import com.volumate.model.Product;
+import com.volumate.util.TermMatcher;
+import com.volumate.util.TextFolding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A product normalized once for scoring. Keywords, category tokens, ingredients and the
+ * name are folded with {@link TextFolding} into the form the satiety table is keyed by,
+ * and scanned once for every {@link Term} the satiety rules test. The rules only read
+ * from this view.
+ */
+final class ProductFeatures {
+    
+    /**
+     * The substrings the satiety rules look for, matched against folded text.
+     */
+    enum Term {
+        APPETIZER("appetizer"), CAKE("cake"), CHEESE("cheese"), COATING("coating"), CRACKER("cracker"),
+        CURED_MEAT("cured meat"), DOODLE("doodle"), FLAKES("flakes"), HAM("ham"), HAVRE("havre"),
+        HAVREGRYN("havregryn"), MEAT("meat"), MYSE("myse"), OAT("oat"), OST("ost"), POWDER("powder"),
+        PREPARED_MEAT("prepared meat"), PROCESSED("processed"), PROTEIN("protein"), PUFFED("puffed"),
+        PULVER("pulver"), RICE("rice"), RISKAGER("riskager"), RISKIKS("riskiks"), ROLLED_OATS("rolled oats"),
+        SALTY_SNACKS("salty-snacks"), SKINKE("skinke"), SNACK("snack"), WHEY("whey");
+        
+        private final String text;
+        
+        Term(String text) {
+            this.text = TextFolding.fold(text);
+        }
+        
+        boolean in(long terms) {
+            return (terms & (1L << ordinal())) != 0;
+        }
+    }
+    
+    private static final TermMatcher TERMS =
+        new TermMatcher(Arrays.stream(Term.values()).map(term -> term.text).toList());
+    
+    /**
+     * One piece of folded product text, which is also its satiety table key, and the terms it contains.
+     */
+    record Token(String key, long terms) {
+        
+        static Token folded(String folded) {
+            return new Token(folded, TERMS.match(folded));
+        }
+        
+        boolean has(Term term) {
+            return term.in(terms);
+        }
+    }
+    
+    private final Set<String> keywordSet;
+    private final List<Token> keywords;
+    private final List<Token> keywordPairs;
+    private final Token categories;
+    private final List<Token> categoryTokens;
+    private final List<Token> ingredients;
+    private final Token productName;
+    private final boolean cheeseName;
+    
+    private ProductFeatures(Product product) {
+        List<String> rawKeywords = product.getKeywords();
+        List<Token> keywordTokens = new ArrayList<>(rawKeywords != null ? rawKeywords.size() : 0);
+        Set<String> folded = new HashSet<>();
+        if (rawKeywords != null) {
+            for (String keyword : rawKeywords) {
+                Token token = Token.folded(TextFolding.fold(keyword));
+                keywordTokens.add(token);
+                folded.add(token.key());
+            }
+        }
+        List<Token> pairs = new ArrayList<>(Math.max(keywordTokens.size() - 1, 0));
+        for (int i = 0; i < keywordTokens.size() - 1; i++) {
+            pairs.add(Token.folded(keywordTokens.get(i).key() + " " + keywordTokens.get(i + 1).key()));
+        }
+        this.keywords = Collections.unmodifiableList(keywordTokens);
+        this.keywordPairs = Collections.unmodifiableList(pairs);
+        this.keywordSet = Collections.unmodifiableSet(folded);
+        
+        String rawCategories = product.getCategories();
+        if (rawCategories != null) {
+            this.categories = Token.folded(TextFolding.fold(rawCategories));
+            String[] parts = categories.key().split(",");
+            List<Token> tokens = new ArrayList<>(parts.length);
+            for (String part : parts) {
+                tokens.add(Token.folded(part.trim()));
+            }
+            this.categoryTokens = Collections.unmodifiableList(tokens);
+        } else {
+            this.categories = null;
+            this.categoryTokens = List.of();
+        }
+        
+        List<Token> parsed = new ArrayList<>();
+        String ingredientsText = product.getIngredientsText();
+        if (ingredientsText != null) {
+            for (String part : TextFolding.fold(ingredientsText).split("[,;()]")) {
+                String cleaned = part.trim();
+                if (cleaned.length() > 2) {
+                    parsed.add(Token.folded(cleaned));
+                }
+            }
+        }
+        this.ingredients = Collections.unmodifiableList(parsed);
+        
+        String rawName = product.getProductName();
+        this.productName = rawName != null ? Token.folded(TextFolding.fold(rawName)) : null;
+        // On the unfolded name, as folding turns "østers" into "osters"
+        String lowerName = rawName != null ? rawName.toLowerCase(Locale.ROOT) : "";
+        this.cheeseName = lowerName.contains("cheese") || lowerName.contains("ost");
+    }
+    
+    static ProductFeatures of(Product product) {
+        return new ProductFeatures(product);
+    }
+    
+    // Expects a folded keyword
+    boolean hasKeyword(String keyword) {
+        return keywordSet.contains(keyword);
+    }
+    
+    // Expects folded keywords
+    boolean hasAnyKeyword(String... candidates) {
+        for (String candidate : candidates) {
+            if (keywordSet.contains(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    List<Token> getKeywords() {
+        return keywords;
+    }
+    
+    // Each keyword joined with the next one, in order
+    List<Token> getKeywordPairs() {
+        return keywordPairs;
+    }
+    
+    boolean hasCategories() {
+        return categories != null;
+    }
+    
+    // All categories as one token, null without categories
+    Token getCategories() {
+        return categories;
+    }
+    
+    List<Token> getCategoryTokens() {
+        return categoryTokens;
+    }
+    
+    List<Token> getIngredients() {
+        return ingredients;
+    }
+    
+    // Null without a product name
+    Token getProductName() {
+        return productName;
+    }
+    
+    // Whether the name says cheese ("cheese", "ost"), which keeps it from being looked up
+    boolean hasCheeseName() {
+        return cheeseName;
+    }
+}
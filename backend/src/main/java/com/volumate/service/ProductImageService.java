@@ -0,0 +1,277 @@
+package com.volumate.service;
+
+import com.volumate.util.Gtin;
+import com.volumate.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Small JPEG thumbnails of product images, for lists and result screens on mobile data.
+ * <p>
+ * A product's OpenFoodFacts image is fetched once from the image host, decoded once and
+ * rendered at every {@link ThumbnailSize}; the thumbnails are kept in the
+ * {@link ThumbnailCache}. Concurrent misses for the same image share the fetch. Only the
+ * path of the product's {@code image_url} is used, always against
+ * {@code external.openfoodfacts.image-base-url}, so the proxy cannot be pointed at other hosts.
+ */
+@Service
+@Slf4j
+public class ProductImageService {
+
+    /**
+     * Thumbnail sizes, as the longest side in pixels. Images are never scaled up.
+     */
+    public enum ThumbnailSize {
+        SMALL(120), MEDIUM(240), LARGE(400);
+
+        private final int pixels;
+
+        ThumbnailSize(int pixels) {
+            this.pixels = pixels;
+        }
+
+        public int getPixels() {
+            return pixels;
+        }
+    }
+
+    /**
+     * A rendered thumbnail and its strong ETag, which changes with the source image.
+     */
+    public record Thumbnail(byte[] jpeg, String etag) {}
+
+    private static final String IMAGE_PATH_PREFIX = "/images/products/";
+    // Larger images are refused before decoding, about 160 MB of pixels
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+
+    private final OpenFoodFactsService openFoodFactsService;
+    private final ThumbnailCache thumbnailCache;
+    private final WebClient imageClient;
+    private final SingleFlight<String, Map<ThumbnailSize, byte[]>> renders = new SingleFlight<>();
+
+    @Value("${external.openfoodfacts.timeout:10000}")
+    private long timeout;
+
+    @Value("${images.quality:0.8}")
+    private float quality;
+
+    @Autowired
+    public ProductImageService(OpenFoodFactsService openFoodFactsService, ThumbnailCache thumbnailCache,
+                               WebClient openFoodFactsImageWebClient) {
+        this.openFoodFactsService = openFoodFactsService;
+        this.thumbnailCache = thumbnailCache;
+        this.imageClient = openFoodFactsImageWebClient;
+    }
+
+    /**
+     * The product's image as a thumbnail of the given size. Completes empty when the product
+     * is unknown or has no usable image, and fails with {@link IllegalArgumentException}
+     * for an invalid barcode before any I/O.
+     */
+    public Mono<Thumbnail> getThumbnail(String requested, ThumbnailSize size) {
+        String barcode;
+        try {
+            barcode = Gtin.canonicalize(requested);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+        return openFoodFactsService.getProductByBarcode(barcode)
+            .mapNotNull(product -> imagePath(product.getImage_url()))
+            .flatMap(path -> {
+                String key = cacheKey(path, size);
+                String etag = "\"" + key + "\"";
+                return Mono.fromCallable(() -> thumbnailCache.get(key))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .switchIfEmpty(Mono.defer(() -> renders.execute(path, () -> render(path))
+                        .mapNotNull(thumbnails -> thumbnails.get(size))))
+                    .map(jpeg -> new Thumbnail(jpeg, etag));
+            });
+    }
+
+    // Fetches the image, renders every size and caches them; empty if the host has no such image
+    private Mono<Map<ThumbnailSize, byte[]>> render(String path) {
+        log.info("Fetching product image: {}", path);
+        return imageClient.get()
+            .uri(uriBuilder -> uriBuilder.path(path).build())
+            .retrieve()
+            .bodyToMono(byte[].class)
+            .onErrorResume(WebClientResponseException.NotFound.class, error -> Mono.empty())
+            .timeout(Duration.ofMillis(timeout))
+            .onErrorMap(error -> new UpstreamUnavailableException("Failed to fetch product image: " + error.getMessage(), error))
+            .publishOn(Schedulers.boundedElastic())
+            .mapNotNull(image -> {
+                long start = System.nanoTime();
+                Map<ThumbnailSize, byte[]> thumbnails = renderAll(image, quality);
+                if (thumbnails == null) {
+                    log.warn("Product image {} could not be decoded", path);
+                    return null;
+                }
+                try {
+                    thumbnails.forEach((size, jpeg) -> thumbnailCache.put(cacheKey(path, size), jpeg));
+                } catch (UncheckedIOException e) {
+                    // Still served, just rendered again next time
+                    log.warn("Could not cache thumbnails of {} - {}", path, e.getMessage());
+                }
+                log.debug("Rendered thumbnails of {} ({} KB) in {} ms",
+                    path, image.length / 1024, (System.nanoTime() - start) / 1_000_000);
+                return thumbnails;
+            });
+    }
+
+    /**
+     * The path of an OpenFoodFacts product image URL, or null if it is not one.
+     */
+    static String imagePath(String imageUrl) {
+        if (imageUrl == null || imageUrl.isBlank()) {
+            return null;
+        }
+        try {
+            String path = URI.create(imageUrl.trim()).normalize().getPath();
+            return path != null && path.startsWith(IMAGE_PATH_PREFIX) && !path.contains("..") ? path : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Every thumbnail size of an encoded image, or null if it cannot be decoded.
+     */
+    static Map<ThumbnailSize, byte[]> renderAll(byte[] image, float quality) {
+        BufferedImage source = decode(image, ThumbnailSize.LARGE.getPixels());
+        if (source == null) {
+            return null;
+        }
+        Map<ThumbnailSize, byte[]> thumbnails = new EnumMap<>(ThumbnailSize.class);
+        // Largest first, each scaled down from the previous one
+        ThumbnailSize[] sizes = ThumbnailSize.values();
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            source = scaleToFit(source, sizes[i].getPixels());
+            thumbnails.put(sizes[i], encodeJpeg(source, quality));
+        }
+        return thumbnails;
+    }
+
+    // Decodes with subsampling, so a large photo is never held in memory at full resolution
+    private static BufferedImage decode(byte[] image, int largest) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(image))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Keep at least twice the largest size, for a clean final scale
+                int step = Math.max(1, Math.max(width, height) / (largest * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Halves the image until within twice the target, then scales to fit, for smooth results without an area filter
+    private static BufferedImage scaleToFit(BufferedImage image, int pixels) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) pixels / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        BufferedImage current = image;
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            width /= 2;
+            height /= 2;
+            current = draw(current, width, height);
+        }
+        if (current == image || width != targetWidth || height != targetHeight) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    // Always an RGB copy, with transparency flattened onto white
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DISABLED);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // Names the thumbnail file; changes with the source image revision, the size and the quality
+    private String cacheKey(String path, ThumbnailSize size) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest((path + "|" + quality).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16) + "-" + size.getPixels();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
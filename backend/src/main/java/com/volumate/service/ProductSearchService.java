@@ -0,0 +1,122 @@
+package com.volumate.service;
+
+import com.volumate.model.Product;
+import com.volumate.model.StoredProduct;
+import com.volumate.repository.ProductStore;
+import com.volumate.repository.ProductStore.ProductRow;
+import com.volumate.util.TextFolding;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Product search by name, brand and category over the local product store, through the
+ * SQLite FTS5 index {@link ProductStore} keeps next to it. Every word of the query is
+ * matched as a prefix, so partial input works for autocomplete, and results come best
+ * scored first.
+ */
+@Service
+@Slf4j
+public class ProductSearchService {
+
+    private static final int MAX_QUERY_TERMS = 6;
+
+    private final ProductStore productStore;
+
+    @Value("${search.backfill.page-size:1000}")
+    private int backfillPageSize;
+
+    @Autowired
+    public ProductSearchService(ProductStore productStore) {
+        this.productStore = productStore;
+    }
+
+    /**
+     * Finds up to {@code limit} stored products matching every word of the query, with
+     * their stored scores. Throws {@link IllegalArgumentException} if the query has no words.
+     */
+    public Mono<List<Product>> search(String query, int limit) {
+        String matchQuery = matchQuery(query);
+        if (matchQuery == null) {
+            return Mono.error(new IllegalArgumentException("Search query has no words: " + query));
+        }
+        return Mono.fromCallable(() -> {
+                List<String> barcodes = productStore.searchBarcodes(matchQuery, limit);
+                Map<String, StoredProduct> stored = productStore.findByBarcodes(barcodes).stream()
+                    .collect(Collectors.toMap(StoredProduct::getBarcode, Function.identity()));
+                // In search order, which is score order
+                List<Product> products = new ArrayList<>(barcodes.size());
+                for (String barcode : barcodes) {
+                    StoredProduct match = stored.get(barcode);
+                    if (match != null) {
+                        products.add(match.withStoredScore());
+                    }
+                }
+                return products;
+            })
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * The FTS5 query for the user's input: each folded word as a quoted prefix, all required.
+     * Null if the input has no words.
+     */
+    static String matchQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        String folded = TextFolding.fold(query);
+        for (int i = 0; i <= folded.length() && terms.size() < MAX_QUERY_TERMS; i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            } else if (!term.isEmpty()) {
+                terms.add("\"" + term + "\"*");
+                term.setLength(0);
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" ", terms);
+    }
+
+    /**
+     * Indexes stored products that predate the search index, in the background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void backfillIndex() {
+        long missing = productStore.count() - productStore.countSearchable();
+        if (missing <= 0) {
+            return;
+        }
+        Thread indexer = new Thread(() -> {
+            log.info("Adding about {} stored products to the search index", missing);
+            long start = System.currentTimeMillis();
+            int added = 0;
+            try {
+                List<ProductRow> page;
+                String after = null;
+                while (!(page = productStore.findPageAfter(after, backfillPageSize)).isEmpty()) {
+                    added += productStore.indexMissingForSearch(page);
+                    after = page.get(page.size() - 1).barcode();
+                }
+                log.info("Added {} products to the search index in {} ms", added, System.currentTimeMillis() - start);
+            } catch (RuntimeException e) {
+                log.error("Search index backfill stopped after {} products - {}", added, e.getMessage());
+            }
+        }, "search-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+}
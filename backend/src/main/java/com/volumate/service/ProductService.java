@@ -1,31 +1,66 @@
 package com.volumate.service;
 
+import com.volumate.model.BatchLookupResult;
 import com.volumate.model.Product;
+import com.volumate.model.StoredProduct;
 import com.volumate.service.VolumeSerenityScoreService.VolumeSerenityScore;
+import com.volumate.util.Gtin;
+import com.volumate.util.SingleFlight;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @Slf4j
 public class ProductService {
     
     private final OpenFoodFactsService openFoodFactsService;
-    private final VolumeSerenityScoreService scoreService;
+    private final ScoreCache scoreCache;
+    private final ProductStoreService productStoreService;
+    private final CategoryTopIndex categoryTopIndex;
+    private final SingleFlight<String, Product> scoringRuns = new SingleFlight<>();
+    
+    @Value("${external.openfoodfacts.batch-concurrency:8}")
+    private int batchConcurrency;
     
     @Autowired
     public ProductService(OpenFoodFactsService openFoodFactsService, 
-                        VolumeSerenityScoreService scoreService) {
+                        ScoreCache scoreCache,
+                        ProductStoreService productStoreService,
+                        CategoryTopIndex categoryTopIndex) {
         this.openFoodFactsService = openFoodFactsService;
-        this.scoreService = scoreService;
+        this.scoreCache = scoreCache;
+        this.productStoreService = productStoreService;
+        this.categoryTopIndex = categoryTopIndex;
     }
     
-    public Mono<Product> getProductWithScore(String barcode) {
-        log.info("Processing product request for barcode: {}", barcode);
+    /**
+     * Looks up and scores a product. The barcode is validated and canonicalized first
+     * (see {@link Gtin}), so every form of one code shares the cache, the store and one
+     * upstream request, and an invalid code fails with {@link IllegalArgumentException}
+     * before any I/O.
+     */
+    public Mono<Product> getProductWithScore(String requested) {
+        log.info("Processing product request for barcode: {}", requested);
+        String barcode;
+        try {
+            barcode = Gtin.canonicalize(requested);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
         
-        return openFoodFactsService.getProductByBarcode(barcode)
-            .map(this::enrichProductWithScore)
+        return scoringRuns.execute(barcode, () -> openFoodFactsService.getProductByBarcode(barcode)
+            .map(product -> withScore(barcode, product)))
             .doOnSuccess(product -> {
                 if (product != null) {
                     log.info("Successfully processed product: {} with score: {}", 
@@ -36,21 +71,110 @@ public class ProductService {
                 log.error("Error processing product with barcode: {} - {}", barcode, error.getMessage()));
     }
     
-    private Product enrichProductWithScore(Product product) {
-        if (product == null) {
-            log.warn("Cannot calculate score for null product");
-            return null;
+    /**
+     * Looks up many barcodes at once. Duplicates are dropped, cached and stored products
+     * are resolved first, and the rest are fetched from OpenFoodFacts with at most
+     * {@code batch-concurrency} requests in flight. Every barcode gets its own result,
+     * under the code as requested.
+     */
+    public Flux<BatchLookupResult> getProductsWithScore(List<String> barcodes) {
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(barcodes));
+        // Requested code to canonical code, and to the reason for the invalid ones
+        Map<String, String> canonical = new LinkedHashMap<>();
+        Map<String, String> invalid = new LinkedHashMap<>();
+        for (String barcode : unique) {
+            try {
+                canonical.put(barcode, Gtin.canonicalize(barcode));
+            } catch (IllegalArgumentException e) {
+                invalid.put(barcode, e.getMessage());
+            }
         }
+        log.info("Processing batch request for {} barcodes ({} unique, {} valid)",
+            barcodes.size(), unique.size(), canonical.size());
         
-        VolumeSerenityScore score = scoreService.calculateScore(product);
-        
-        // Set the calculated score data on the product
-        product.setVolumeSerenityScore(score.getScore());
-        product.setVolumeSerenityRating(score.getRating());
-        product.setVolumeSerenityRatingColor(score.getRatingColor());
+        // By position, as a missing (null) code cannot go through a Flux
+        return openFoodFactsService.getKnownProducts(new ArrayList<>(new LinkedHashSet<>(canonical.values())))
+            .flatMapMany(known -> Flux.range(0, unique.size())
+                .flatMapSequential(i -> {
+                    String barcode = unique.get(i);
+                    return invalid.containsKey(barcode)
+                        ? Mono.just(BatchLookupResult.invalid(barcode, invalid.get(barcode)))
+                        : lookup(barcode, canonical.get(barcode), known);
+                }, batchConcurrency));
+    }
+    
+    private Mono<BatchLookupResult> lookup(String barcode, String canonical, Map<String, Product> known) {
+        Product stored = known.get(canonical);
+        Mono<Product> product = stored != null
+            ? Mono.fromCallable(() -> withScore(canonical, stored))
+            : getProductWithScore(canonical);
+        return product
+            .map(found -> BatchLookupResult.found(barcode, found))
+            .defaultIfEmpty(BatchLookupResult.notFound(barcode))
+            .onErrorResume(error -> Mono.just(BatchLookupResult.error(barcode, error.getMessage())));
+    }
+    
+    /**
+     * Stored products sharing a category with the given one and scoring higher, taken
+     * from the category top lists: most specific category first, best scored first
+     * within it. Completes empty when the product itself is not found.
+     */
+    public Mono<List<Product>> getAlternatives(String requested, int limit) {
+        String barcode;
+        try {
+            barcode = Gtin.canonicalize(requested);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+        return getProductWithScore(barcode).flatMap(product -> {
+            Integer score = product.getVolumeSerenityScore();
+            List<String> categories = new ArrayList<>(CategoryTopIndex.categoriesOf(product.getCategories()));
+            Collections.reverse(categories);
+            // Candidate to the category it came from; a few spare in case some are stale
+            Map<String, String> candidates = new LinkedHashMap<>();
+            for (String category : categories) {
+                if (candidates.size() >= limit * 2) {
+                    break;
+                }
+                for (String candidate : categoryTopIndex.better(category, score, barcode, limit * 2)) {
+                    candidates.putIfAbsent(candidate, category);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return Mono.just(List.<Product>of());
+            }
+            return productStoreService.findAll(candidates.keySet()).map(stored -> {
+                List<Product> alternatives = new ArrayList<>(limit);
+                candidates.forEach((candidate, category) -> {
+                    StoredProduct match = stored.get(candidate);
+                    if (alternatives.size() < limit && match != null && isBetterIn(match, category, score)) {
+                        alternatives.add(match.withStoredScore());
+                    }
+                });
+                return alternatives;
+            });
+        });
+    }
+    
+    // Checked against the store, as top list entries can lag behind a changed product
+    private static boolean isBetterIn(StoredProduct stored, String category, Integer than) {
+        return stored.getScore() != null && (than == null || stored.getScore() > than)
+            && CategoryTopIndex.categoriesOf(stored.getProduct().getCategories()).contains(category);
+    }
+    
+    /**
+     * Returns a copy of the product carrying its score. The product itself may be shared
+     * through the product cache and is never modified.
+     */
+    private Product withScore(String barcode, Product product) {
+        VolumeSerenityScore score = scoreCache.score(barcode, product);
         
-        log.debug("Enriched product {} with score: {}", product.getProductName(), score.getScore());
+        log.debug("Scored product {}: {}", product.getProductName(), score.getScore());
         
-        return product;
+        return product.toBuilder()
+            .volumeSerenityScore(score.getScore())
+            .volumeSerenityRating(score.getRating())
+            .volumeSerenityRatingColor(score.getRatingColor())
+            .build();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,177 @@
+package com.volumate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volumate.model.OpenFoodFactsResponse;
+import com.volumate.model.Product;
+import com.volumate.model.StoredProduct;
+import com.volumate.repository.ProductStore;
+import com.volumate.service.VolumeSerenityScoreService.VolumeSerenityScore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Second-level product cache between the in-memory cache and OpenFoodFacts.
+ * <p>
+ * Reads run on the bounded elastic scheduler. Writes are queued and flushed in
+ * batches by a single background thread, which also computes the Volume Serenity
+ * score, so persisting a freshly fetched product never adds to scan latency.
+ */
+@Service
+@Slf4j
+public class ProductStoreService {
+    
+    private final ProductStore productStore;
+    private final ScoreCache scoreCache;
+    private final CategoryTopIndex categoryTopIndex;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<PendingWrite> pendingWrites;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-store-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @Value("${store.product.ttl:604800}")
+    private long ttlSeconds;
+    
+    @Value("${store.product.hard-ttl:2592000}")
+    private long hardTtlSeconds;
+    
+    @Value("${store.product.write-behind.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${store.product.write-behind.flush-interval:500}")
+    private long flushIntervalMillis;
+    
+    @Autowired
+    public ProductStoreService(ProductStore productStore,
+                               ScoreCache scoreCache,
+                               CategoryTopIndex categoryTopIndex,
+                               ObjectMapper objectMapper,
+                               @Value("${store.product.write-behind.queue-capacity:10000}") int queueCapacity) {
+        this.productStore = productStore;
+        this.scoreCache = scoreCache;
+        this.categoryTopIndex = categoryTopIndex;
+        this.objectMapper = objectMapper;
+        this.pendingWrites = new LinkedBlockingQueue<>(queueCapacity);
+    }
+    
+    @PostConstruct
+    void startFlusher() {
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    void stopFlusher() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+    
+    /**
+     * Looks the barcode up in the store, completing empty when it is missing or older than
+     * the hard TTL. Rows past the soft TTL are still returned; see {@link #isStale}.
+     */
+    public Mono<StoredProduct> find(String barcode) {
+        return Mono.fromCallable(() -> productStore.findByBarcode(barcode).orElse(null))
+            .subscribeOn(Schedulers.boundedElastic())
+            .filter(stored -> !stored.isOlderThan(hardTtlSeconds))
+            .doOnNext(stored -> log.debug("Product store hit for barcode: {}", barcode))
+            .onErrorResume(error -> {
+                // The store is only a cache; fall through to OpenFoodFacts
+                log.error("Error reading product store for barcode: {} - {}", barcode, error.getMessage());
+                return Mono.empty();
+            });
+    }
+    
+    /**
+     * Looks the barcode up regardless of age, for serving while OpenFoodFacts is unavailable.
+     */
+    public Mono<StoredProduct> findIgnoringAge(String barcode) {
+        return Mono.fromCallable(() -> productStore.findByBarcode(barcode).orElse(null))
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorResume(error -> {
+                log.error("Error reading product store for barcode: {} - {}", barcode, error.getMessage());
+                return Mono.empty();
+            });
+    }
+    
+    /**
+     * Looks up many barcodes in one query, leaving out missing rows and rows past the hard TTL.
+     */
+    public Mono<Map<String, StoredProduct>> findAll(Collection<String> barcodes) {
+        return Mono.fromCallable(() -> productStore.findByBarcodes(barcodes).stream()
+                .filter(stored -> !stored.isOlderThan(hardTtlSeconds))
+                .collect(Collectors.toMap(StoredProduct::getBarcode, stored -> stored)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorResume(error -> {
+                log.error("Error reading product store for {} barcodes - {}", barcodes.size(), error.getMessage());
+                return Mono.just(Map.of());
+            });
+    }
+    
+    /**
+     * Whether a stored row is past the soft TTL and should be refreshed in the background.
+     */
+    public boolean isStale(StoredProduct stored) {
+        return stored.isOlderThan(ttlSeconds);
+    }
+    
+    /**
+     * Queues a freshly fetched product for the next batched write. The response is
+     * serialized back into the stored payload on the writer thread.
+     */
+    public void saveAsync(String barcode, OpenFoodFactsResponse response, Product product) {
+        if (!pendingWrites.offer(new PendingWrite(barcode, response, product, Instant.now()))) {
+            log.warn("Product store write queue is full, dropping write for barcode: {}", barcode);
+        }
+    }
+    
+    void flush() {
+        try {
+            while (!pendingWrites.isEmpty()) {
+                // Later writes for the same barcode within a batch win
+                Map<String, StoredProduct> batch = new LinkedHashMap<>();
+                List<PendingWrite> drained = new ArrayList<>(batchSize);
+                pendingWrites.drainTo(drained, batchSize);
+                for (PendingWrite write : drained) {
+                    batch.put(write.barcode(), toStoredProduct(write));
+                }
+                productStore.saveAll(new ArrayList<>(batch.values()));
+                for (StoredProduct stored : batch.values()) {
+                    categoryTopIndex.record(stored.getBarcode(), stored.getProduct().getCategories(), stored.getScore());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to flush product store writes: {}", e.getMessage());
+        }
+    }
+    
+    private StoredProduct toStoredProduct(PendingWrite write) throws JsonProcessingException {
+        VolumeSerenityScore score = scoreCache.score(write.barcode(), write.product());
+        return new StoredProduct(write.barcode(), objectMapper.writeValueAsString(write.response()),
+            write.product(), score.getScore(), score.getRating(), score.getRatingColor(), write.fetchedAt());
+    }
+    
+    private record PendingWrite(String barcode, OpenFoodFactsResponse response, Product product, Instant fetchedAt) {}
+}
@@ -0,0 +1,10 @@
+package com.volumate.service;
+
+/**
+ * The outcome of running the satiety rules on a product: the adjusted satiety index
+ * (null when no rule matched), the rule that fired and how long evaluation took.
+ */
+public record SatietyEvaluation(Integer satietyIndex, String rule, long evaluationNanos) {
+    
+    public static final String NO_MATCH = "none";
+}
@@ -0,0 +1,72 @@
+package com.volumate.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The serialized satiety reference response of one table, kept both plain and gzipped
+ * so serving it is a plain byte copy. The ETags are strong and differ per encoding.
+ */
+public final class SatietyIndexSnapshot {
+
+    private final SatietyTable table;
+    private final byte[] json;
+    private final byte[] gzipped;
+    private final String etag;
+    private final String gzipEtag;
+
+    SatietyIndexSnapshot(SatietyTable table, byte[] json) {
+        this.table = table;
+        this.json = json;
+        this.gzipped = gzip(json);
+        String hash = sha256(json);
+        this.etag = "\"" + hash + "\"";
+        this.gzipEtag = "\"" + hash + "-gzip\"";
+    }
+
+    // The table this snapshot was serialized from
+    SatietyTable getTable() {
+        return table;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzipped() {
+        return gzipped;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getGzipEtag() {
+        return gzipEtag;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            // 128 bits are plenty to tell table versions apart
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.volumate.service;
+
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * One step of the satiety cascade: when it matches a product it yields the base satiety
+ * index, which the nutrient adjustments are then applied to. Rules are tried in order
+ * and the first match wins, see {@link SatietyRules}.
+ */
+final class SatietyRule {
+    
+    private final String name;
+    private final boolean processedMeatAdjusted;
+    private final BiFunction<SatietyTable, ProductFeatures, Integer> baseSatiety;
+    
+    private SatietyRule(String name, boolean processedMeatAdjusted,
+                        BiFunction<SatietyTable, ProductFeatures, Integer> baseSatiety) {
+        this.name = name;
+        this.processedMeatAdjusted = processedMeatAdjusted;
+        this.baseSatiety = baseSatiety;
+    }
+    
+    /**
+     * A rule with a fixed base satiety index, never reduced for processed meat.
+     */
+    static SatietyRule fixed(String name, int baseSatiety, Predicate<ProductFeatures> condition) {
+        return new SatietyRule(name, false, (table, features) -> condition.test(features) ? baseSatiety : null);
+    }
+    
+    /**
+     * A rule with a fixed base satiety index that is reduced for processed meat.
+     */
+    static SatietyRule fixedAdjusted(String name, int baseSatiety, Predicate<ProductFeatures> condition) {
+        return new SatietyRule(name, true, (table, features) -> condition.test(features) ? baseSatiety : null);
+    }
+    
+    /**
+     * A rule whose base satiety index comes from the table; it matches when the lookup
+     * returns one.
+     */
+    static SatietyRule lookup(String name, boolean processedMeatAdjusted,
+                              BiFunction<SatietyTable, ProductFeatures, Integer> lookup) {
+        return new SatietyRule(name, processedMeatAdjusted, lookup);
+    }
+    
+    String getName() {
+        return name;
+    }
+    
+    boolean isProcessedMeatAdjusted() {
+        return processedMeatAdjusted;
+    }
+    
+    // Null when the rule does not match
+    Integer baseSatiety(SatietyTable table, ProductFeatures features) {
+        return baseSatiety.apply(table, features);
+    }
+}
@@ -0,0 +1,211 @@
+package com.volumate.service;
+
+import com.volumate.service.ProductFeatures.Token;
+import com.volumate.util.TextFolding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.volumate.service.ProductFeatures.Term.*;
+
+/**
+ * The satiety cascade as an ordered list of rules. Every condition reads the term masks
+ * and keyword set of a {@link ProductFeatures}, so no product text is scanned again
+ * while the rules are evaluated.
+ */
+final class SatietyRules {
+    
+    // Keywords are compared folded, see TextFolding
+    private static final String[] OAT_KEYWORDS = folded("oat", "oats", "havre", "havregryn", "rolled oats");
+    private static final String[] GRAIN_KEYWORDS =
+        folded("grain", "grain bread", "fuldkorn", "fuldkornbrød", "fullkorn", "fullkornbrød");
+    private static final String KNAEKBROD = TextFolding.fold("knækbrød");
+    
+    static final List<SatietyRule> RULES = List.of(
+        SatietyRule.fixed("sesame-crispbread", 148,
+            f -> f.hasKeyword(KNAEKBROD) && f.hasKeyword("sesam")),
+        SatietyRule.fixed("grain", 154,
+            f -> f.hasAnyKeyword(GRAIN_KEYWORDS)),
+        // Priority categories (like rugbrød) win over everything matched by category below
+        SatietyRule.lookup("priority-category", false,
+            (table, f) -> f.hasCategories() && table.matchesPriorityCategory(f.getCategories().key())
+                ? table.getPriorityIndex() : null),
+        SatietyRule.fixed("oats", 209,
+            f -> (f.hasCategories() && isOatCategory(f.getCategories())) || f.hasAnyKeyword(OAT_KEYWORDS)),
+        SatietyRule.fixedAdjusted("rice-cake", 75,
+            f -> hasCategoryText(f) && (f.hasKeyword("riskiks")
+                || (f.hasKeyword("rice") && (f.hasKeyword("riskager") || f.hasKeyword("cake"))))),
+        SatietyRule.lookup("category", true, SatietyRules::categoryIndex),
+        SatietyRule.lookup("main-ingredient", true,
+            (table, f) -> f.getIngredients().isEmpty() ? null : table.lookup(f.getIngredients().get(0).key())),
+        SatietyRule.lookup("ingredients", true, SatietyRules::averageIngredientIndex),
+        SatietyRule.lookup("product-name", true,
+            (table, f) -> f.getProductName() != null && !f.hasCheeseName()
+                ? table.lookupText(f.getProductName().key()) : null),
+        SatietyRule.lookup("keyword", true, (table, f) -> firstKeywordIndex(table, f.getKeywords())),
+        SatietyRule.lookup("keyword-pair", true, (table, f) -> firstKeywordIndex(table, f.getKeywordPairs())),
+        // Misspelled or inflected words ("bananer", "havregrynet"), only once nothing else matched
+        SatietyRule.lookup("fuzzy", true, SatietyRules::fuzzyIndex)
+    );
+    
+    private SatietyRules() {
+    }
+    
+    private static String[] folded(String... words) {
+        return Arrays.stream(words).map(TextFolding::fold).distinct().toArray(String[]::new);
+    }
+    
+    /**
+     * The first rule matching the product and the base satiety index it yields, or null
+     * if none does.
+     */
+    static Match evaluate(SatietyTable table, ProductFeatures features) {
+        for (SatietyRule rule : RULES) {
+            Integer base = rule.baseSatiety(table, features);
+            if (base != null) {
+                return new Match(rule, base);
+            }
+        }
+        return null;
+    }
+    
+    static boolean isProcessedMeat(ProductFeatures features) {
+        if (!features.hasCategories()) {
+            return false;
+        }
+        Token categories = features.getCategories();
+        return (categories.has(PROCESSED) && categories.has(MEAT))
+            || categories.has(CURED_MEAT)
+            // Except ham
+            || (categories.has(PREPARED_MEAT) && !(categories.has(HAM) || categories.has(SKINKE)));
+    }
+    
+    private static boolean isOatCategory(Token categories) {
+        return categories.has(ROLLED_OATS) || categories.has(HAVREGRYN)
+            || (categories.has(OAT) && !categories.has(COATING))
+            || categories.has(HAVRE);
+    }
+    
+    private static boolean hasCategoryText(ProductFeatures features) {
+        return features.hasCategories() && !features.getCategories().key().isEmpty();
+    }
+    
+    private static Integer categoryIndex(SatietyTable table, ProductFeatures features) {
+        if (!hasCategoryText(features)) {
+            return null;
+        }
+        for (Token category : features.getCategoryTokens()) {
+            if (isMisleadingCategory(category)) {
+                continue;
+            }
+            Integer index = table.lookup(category.key());
+            if (index != null) {
+                return index;
+            }
+        }
+        return null;
+    }
+    
+    private static boolean isMisleadingCategory(Token category) {
+        // Rice cakes have misleadingly high satiety scores
+        boolean isRiceCake = category.has(RISKIKS)
+            || (category.has(RICE) && (category.has(CAKE) || category.has(CRACKER) || category.has(RISKAGER)));
+        // Cheese snacks should not get the high satiety score of plain cheese
+        boolean isCheeseSnack = category.has(CHEESE) && (category.has(SNACK) || category.has(SALTY_SNACKS)
+            || category.has(PUFFED) || category.has(DOODLE));
+        boolean isGeneralSnack = category.has(SNACK) || category.has(APPETIZER);
+        return isRiceCake || isCheeseSnack || isGenericFlakes(category) || isGeneralSnack;
+    }
+    
+    // Flakes count only when they are oats/havregryn
+    private static boolean isGenericFlakes(Token token) {
+        return token.has(FLAKES) && !(token.has(OAT) || token.has(HAVRE) || token.has(ROLLED_OATS));
+    }
+    
+    private static Integer averageIngredientIndex(SatietyTable table, ProductFeatures features) {
+        int sum = 0;
+        int count = 0;
+        for (Token ingredient : features.getIngredients()) {
+            // Powders and protein isolates say little about the food itself
+            if (ingredient.has(POWDER) || ingredient.has(PULVER) || ingredient.has(PROTEIN)
+                || ingredient.has(WHEY) || ingredient.has(MYSE)) {
+                continue;
+            }
+            Integer index = table.lookup(ingredient.key());
+            if (index != null) {
+                sum += index;
+                count++;
+            }
+        }
+        return count > 0 ? (int) Math.round((double) sum / count) : null;
+    }
+    
+    private static Integer firstKeywordIndex(SatietyTable table, List<Token> keywords) {
+        for (Token keyword : keywords) {
+            if (isGenericFlakes(keyword)) {
+                continue;
+            }
+            Integer index = table.lookup(keyword.key());
+            if (index != null) {
+                return index;
+            }
+        }
+        return null;
+    }
+    
+    private static Integer fuzzyIndex(SatietyTable table, ProductFeatures features) {
+        // Tokens in the order the exact rules try them, skipping the ones those rules skip
+        List<Token> tokens = new ArrayList<>();
+        if (hasCategoryText(features)) {
+            for (Token category : features.getCategoryTokens()) {
+                if (!isMisleadingCategory(category)) {
+                    tokens.add(category);
+                }
+            }
+        }
+        for (Token ingredient : features.getIngredients()) {
+            if (!(ingredient.has(POWDER) || ingredient.has(PULVER) || ingredient.has(PROTEIN)
+                || ingredient.has(WHEY) || ingredient.has(MYSE))) {
+                tokens.add(ingredient);
+            }
+        }
+        Token name = features.getProductName();
+        boolean hasName = name != null && !features.hasCheeseName();
+        List<Token> keywords = new ArrayList<>();
+        for (Token keyword : features.getKeywords()) {
+            if (!isGenericFlakes(keyword)) {
+                keywords.add(keyword);
+            }
+        }
+        
+        long deadline = System.nanoTime() + table.getFuzzyBudgetNanos();
+        Integer index = firstFuzzyIndex(table, tokens, deadline);
+        if (index != null || System.nanoTime() - deadline > 0) {
+            return index;
+        }
+        // The name is free text, matched without memoizing
+        if (hasName) {
+            index = table.fuzzyLookupText(name.key(), deadline);
+            if (index != null || System.nanoTime() - deadline > 0) {
+                return index;
+            }
+        }
+        return firstFuzzyIndex(table, keywords, deadline);
+    }
+    
+    private static Integer firstFuzzyIndex(SatietyTable table, List<Token> tokens, long deadline) {
+        for (Token token : tokens) {
+            Integer index = table.fuzzyLookup(token.key(), deadline);
+            if (index != null) {
+                return index;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                return null;
+            }
+        }
+        return null;
+    }
+    
+    record Match(SatietyRule rule, int baseSatiety) {}
+}
@@ -0,0 +1,272 @@
+package com.volumate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.volumate.model.Nutriments;
+import com.volumate.model.SatietyTableDefinition;
+import com.volumate.util.FuzzyMatcher;
+import com.volumate.util.TermMatcher;
+import com.volumate.util.TextFolding;
+import com.volumate.util.WholeWordMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, compiled version of the satiety table. A new instance is built for every
+ * (re)load and swapped in whole, so a calculation that holds one never sees a mix of versions.
+ * <p>
+ * Partial and fuzzy lookups of short tokens (single categories, ingredients, keywords)
+ * are memoized, misses included, in a cache shared across versions; every key carries the
+ * version it was resolved against. Free text such as product names is nearly unique per
+ * product and is matched directly, so it does not push the tokens out of the cache.
+ */
+public final class SatietyTable {
+    
+    // Memoized in place of "no match", as index values are always positive
+    private static final Integer NO_MATCH = 0;
+    
+    private final String version;
+    private final Map<String, Integer> index;
+    private final Map<String, Integer> entries;
+    private final Cache<TokenKey, Integer> resolved;
+    private final WholeWordMatcher<Integer> partialMatcher;
+    private final FuzzyMatcher<Integer> fuzzyMatcher;
+    private final SatietyTableDefinition.Fuzzy fuzzy;
+    private final Set<String> fuzzyStopWords;
+    private final List<String> priorityCategories;
+    private final TermMatcher priorityMatcher;
+    private final int priorityIndex;
+    private final double processedMeatFactor;
+    private final Map<String, Double> novaGroupFactors;
+    private final List<NutrientRule> nutrientRules;
+    
+    private SatietyTable(SatietyTableDefinition definition, Cache<TokenKey, Integer> resolved) {
+        this.version = definition.getVersion();
+        this.resolved = resolved;
+        
+        // Keyed by the folded form products are matched in; spellings that fold to the same
+        // key must agree. Filled in file order, so ties between equally long partial matches
+        // resolve the same way on every load
+        Map<String, Integer> byFoldedKey = new HashMap<>();
+        definition.getIndex().forEach((key, value) -> {
+            String folded = key != null ? TextFolding.fold(key) : "";
+            if (folded.isEmpty() || value == null || value <= 0) {
+                throw new IllegalArgumentException("Invalid satiety index entry: " + key + "=" + value);
+            }
+            Integer previous = byFoldedKey.putIfAbsent(folded, value);
+            if (previous != null && !previous.equals(value)) {
+                throw new IllegalArgumentException("Satiety index entry " + key + "=" + value
+                    + " conflicts with an earlier spelling of " + folded + "=" + previous);
+            }
+        });
+        this.index = Collections.unmodifiableMap(byFoldedKey);
+        this.entries = Collections.unmodifiableMap(new LinkedHashMap<>(definition.getIndex()));
+        this.partialMatcher = new WholeWordMatcher<>(index);
+        this.fuzzyMatcher = new FuzzyMatcher<>(index);
+        this.fuzzy = definition.getFuzzy();
+        if (fuzzy.getLettersPerEdit() <= 0 || fuzzy.getBudgetMicros() < 0) {
+            throw new IllegalArgumentException("Invalid fuzzy matching settings: " + fuzzy);
+        }
+        this.fuzzyStopWords = Set.copyOf(fuzzy.getStopWords().stream().map(TextFolding::fold).toList());
+        
+        SatietyTableDefinition.PriorityCategories priority = definition.getPriorityCategories();
+        Integer priorityValue = index.get(TextFolding.fold(priority.getIndexKey()));
+        if (priorityValue == null) {
+            throw new IllegalArgumentException("Priority index key is not in the table: " + priority.getIndexKey());
+        }
+        this.priorityIndex = priorityValue;
+        this.priorityCategories = priority.getCategories().stream().map(TextFolding::fold).distinct().toList();
+        this.priorityMatcher = new TermMatcher(priorityCategories);
+        
+        SatietyTableDefinition.Adjustments adjustments = definition.getAdjustments();
+        this.processedMeatFactor = adjustments.getProcessedMeatFactor();
+        this.novaGroupFactors = Map.copyOf(adjustments.getNovaGroupFactors());
+        List<NutrientRule> rules = new ArrayList<>();
+        for (SatietyTableDefinition.NutrientAdjustment adjustment : adjustments.getNutrients()) {
+            rules.add(new NutrientRule(adjustment));
+        }
+        this.nutrientRules = List.copyOf(rules);
+    }
+    
+    /**
+     * Compiles a table definition, rejecting it with an {@link IllegalArgumentException}
+     * if it is incomplete. Token lookups are memoized in {@code resolved}.
+     */
+    public static SatietyTable compile(SatietyTableDefinition definition, Cache<TokenKey, Integer> resolved) {
+        if (definition.getVersion() == null || definition.getVersion().isBlank()) {
+            throw new IllegalArgumentException("Satiety table has no version");
+        }
+        if (definition.getIndex() == null || definition.getIndex().isEmpty()) {
+            throw new IllegalArgumentException("Satiety table " + definition.getVersion() + " has no entries");
+        }
+        return new SatietyTable(definition, resolved);
+    }
+    
+    public String getVersion() {
+        return version;
+    }
+    
+    // Keyed by folded name
+    public Map<String, Integer> getIndex() {
+        return index;
+    }
+    
+    /**
+     * The entries as spelled in the table file, in file order, for display.
+     */
+    public Map<String, Integer> getEntries() {
+        return entries;
+    }
+    
+    /**
+     * Looks up a token already folded with {@link TextFolding}: exact match first, otherwise
+     * the longest key occurring in it as a whole word. The result is memoized.
+     */
+    public Integer lookup(String foldedToken) {
+        Integer exact = index.get(foldedToken);
+        if (exact != null) {
+            return exact;
+        }
+        Integer partial = resolved.get(new TokenKey(version, foldedToken, false), key -> {
+            Integer found = partialMatcher.findLongest(key.token());
+            return found != null ? found : NO_MATCH;
+        });
+        return matchOrNull(partial);
+    }
+    
+    /**
+     * Like {@link #lookup} for free text such as a product name, without memoizing.
+     */
+    public Integer lookupText(String foldedText) {
+        Integer exact = index.get(foldedText);
+        return exact != null ? exact : partialMatcher.findLongest(foldedText);
+    }
+    
+    /**
+     * Looks up a folded token that has no exact or whole-word match by its closest key,
+     * allowing one edit per {@code lettersPerEdit} letters. Short tokens and stop words are
+     * never matched. Gives up with null once the deadline passes. The result is memoized.
+     */
+    public Integer fuzzyLookup(String foldedToken, long deadlineNanos) {
+        if (!isFuzzyCandidate(foldedToken)) {
+            return null;
+        }
+        TokenKey key = new TokenKey(version, foldedToken, true);
+        Integer memoized = resolved.getIfPresent(key);
+        if (memoized != null) {
+            return matchOrNull(memoized);
+        }
+        Integer found = findClosest(foldedToken, deadlineNanos);
+        // A search cut short by the deadline says nothing about the token
+        if (found != null || System.nanoTime() - deadlineNanos <= 0) {
+            resolved.put(key, found != null ? found : NO_MATCH);
+        }
+        return found;
+    }
+    
+    /**
+     * Like {@link #fuzzyLookup} for free text such as a product name, without memoizing.
+     */
+    public Integer fuzzyLookupText(String foldedText, long deadlineNanos) {
+        return isFuzzyCandidate(foldedText) ? findClosest(foldedText, deadlineNanos) : null;
+    }
+    
+    private boolean isFuzzyCandidate(String folded) {
+        return folded.length() >= fuzzy.getMinLength() && !fuzzyStopWords.contains(folded);
+    }
+    
+    private Integer findClosest(String folded, long deadlineNanos) {
+        int maxEdits = Math.min(fuzzy.getMaxEdits(), folded.length() / fuzzy.getLettersPerEdit());
+        return fuzzyMatcher.findClosest(folded, maxEdits, deadlineNanos);
+    }
+    
+    private static Integer matchOrNull(Integer memoized) {
+        return NO_MATCH.equals(memoized) ? null : memoized;
+    }
+    
+    public long getFuzzyBudgetNanos() {
+        return fuzzy.getBudgetMicros() * 1000;
+    }
+    
+    public List<String> getPriorityCategories() {
+        return priorityCategories;
+    }
+    
+    /**
+     * Whether the folded categories contain any priority category.
+     */
+    public boolean matchesPriorityCategory(String categories) {
+        return priorityMatcher.match(categories) != 0;
+    }
+    
+    public int getPriorityIndex() {
+        return priorityIndex;
+    }
+    
+    public double getProcessedMeatFactor() {
+        return processedMeatFactor;
+    }
+    
+    public double novaGroupFactor(String novaGroup) {
+        return novaGroupFactors.getOrDefault(novaGroup, 1.0);
+    }
+    
+    public List<NutrientRule> getNutrientRules() {
+        return nutrientRules;
+    }
+    
+    /**
+     * A token resolved against one table version, by whole-word or fuzzy matching.
+     */
+    public record TokenKey(String version, String token, boolean fuzzy) {}
+    
+    /**
+     * Factor bands for one nutriment, highest minimum first.
+     */
+    public static final class NutrientRule {
+        
+        private final String nutriment;
+        // Null when the nutriment is not a typed one and can only come from the extras
+        private final Nutriments.Nutrient nutrient;
+        private final double[] minimums;
+        private final double[] factors;
+        
+        private NutrientRule(SatietyTableDefinition.NutrientAdjustment adjustment) {
+            if (adjustment.getNutriment() == null || adjustment.getNutriment().isEmpty()) {
+                throw new IllegalArgumentException("Nutrient adjustment without a nutriment");
+            }
+            this.nutriment = adjustment.getNutriment();
+            this.nutrient = Nutriments.Nutrient.fromKey(nutriment);
+            List<SatietyTableDefinition.Band> bands = new ArrayList<>(adjustment.getBands());
+            bands.sort(Comparator.comparingDouble(SatietyTableDefinition.Band::getMin).reversed());
+            this.minimums = bands.stream().mapToDouble(SatietyTableDefinition.Band::getMin).toArray();
+            this.factors = bands.stream().mapToDouble(SatietyTableDefinition.Band::getFactor).toArray();
+        }
+        
+        public String getNutriment() {
+            return nutriment;
+        }
+        
+        /**
+         * The product's amount of this nutriment, or NaN.
+         */
+        public double amountIn(Nutriments nutriments) {
+            return nutrient != null ? nutriments.get(nutrient) : nutriments.get(nutriment);
+        }
+        
+        public double factorFor(double amount) {
+            for (int i = 0; i < minimums.length; i++) {
+                if (amount >= minimums[i]) {
+                    return factors[i];
+                }
+            }
+            return 1.0;
+        }
+    }
+}
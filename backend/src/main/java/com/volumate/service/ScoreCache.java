@@ -0,0 +1,111 @@
+package com.volumate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.volumate.model.Nutriments;
+import com.volumate.model.Nutriments.Nutrient;
+import com.volumate.model.Product;
+import com.volumate.service.VolumeSerenityScoreService.VolumeSerenityScore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Remembers the Volume Serenity Score of each product per satiety table version, so a
+ * cached product is scored once instead of on every request.
+ * <p>
+ * Entries are keyed by barcode and table version and hold the score together with a
+ * SHA-256 fingerprint of the fields scoring reads: name, categories, keywords,
+ * ingredients, nutriments and NOVA group. A hit is only used when the fingerprint
+ * matches, so the same product read back from the store or parsed again for a write
+ * reuses its score, while a refreshed product with changed content is scored again.
+ * Only the score and the fingerprint are kept, not the product. Reloading the satiety
+ * table changes the version and with it every key.
+ */
+@Component
+public class ScoreCache {
+    
+    private final VolumeSerenityScoreService scoreService;
+    private final SatietyIndexService satietyIndexService;
+    private final Cache<Key, Entry> entries;
+    
+    @Autowired
+    public ScoreCache(VolumeSerenityScoreService scoreService, SatietyIndexService satietyIndexService,
+                      MeterRegistry meterRegistry, @Value("${cache.score.max-size:10000}") int maxSize) {
+        this.scoreService = scoreService;
+        this.satietyIndexService = satietyIndexService;
+        this.entries = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "productScores");
+    }
+    
+    public VolumeSerenityScore score(String barcode, Product product) {
+        Key key = new Key(barcode, satietyIndexService.getTableVersion());
+        byte[] fingerprint = fingerprint(product);
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && Arrays.equals(entry.fingerprint(), fingerprint)) {
+            return entry.score();
+        }
+        // Atomic per key, so concurrent callers with the same content score it once
+        return entries.asMap().compute(key, (ignored, current) ->
+            current != null && Arrays.equals(current.fingerprint(), fingerprint)
+                ? current
+                : new Entry(fingerprint, scoreService.calculateScore(product))).score();
+    }
+    
+    private static byte[] fingerprint(Product product) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        update(digest, product.getProductName());
+        update(digest, product.getCategories());
+        update(digest, product.getIngredientsText());
+        update(digest, product.getNovaGroup());
+        List<String> keywords = product.getKeywords();
+        digest.update(ByteBuffer.allocate(4).putInt(keywords != null ? keywords.size() : -1).array());
+        if (keywords != null) {
+            for (String keyword : keywords) {
+                update(digest, keyword);
+            }
+        }
+        Nutriments nutriments = product.getNutriments();
+        ByteBuffer values = ByteBuffer.allocate(1 + Nutrient.values().length * 8);
+        values.put((byte) (nutriments != null ? 1 : 0));
+        if (nutriments != null) {
+            for (Nutrient nutrient : Nutrient.values()) {
+                values.putLong(Double.doubleToLongBits(nutriments.get(nutrient)));
+            }
+        }
+        digest.update(values.array(), 0, values.position());
+        return digest.digest();
+    }
+    
+    // Length-prefixed, so field boundaries and null are part of the fingerprint
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+    
+    private record Key(String barcode, String tableVersion) {}
+    
+    private record Entry(byte[] fingerprint, VolumeSerenityScore score) {}
+}
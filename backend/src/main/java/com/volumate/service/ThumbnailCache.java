@@ -0,0 +1,173 @@
+package com.volumate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Rendered product thumbnails on disk, one file per key, holding at most
+ * {@code images.cache.max-size} bytes. The least recently used files are deleted first.
+ * <p>
+ * Files are written to a temporary name and moved into place, so a reader never sees a
+ * partial thumbnail. Reads touch the file's modification time, which orders the files
+ * again when the cache is reopened after a restart.
+ */
+@Component
+@Slf4j
+public class ThumbnailCache {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    // File name to size in bytes, least recently used first
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public ThumbnailCache(MeterRegistry meterRegistry,
+                          @Value("${images.cache.directory:thumbnails}") String directory,
+                          @Value("${images.cache.max-size:268435456}") long maxBytes) {
+        this.directory = Path.of(directory);
+        this.maxBytes = maxBytes;
+        open();
+        this.hits = meterRegistry.counter("thumbnails.cache.gets", "result", "hit");
+        this.misses = meterRegistry.counter("thumbnails.cache.gets", "result", "miss");
+        Gauge.builder("thumbnails.cache.bytes", this, ThumbnailCache::size).register(meterRegistry);
+    }
+
+    /**
+     * The cached thumbnail, or null if there is none.
+     */
+    public byte[] get(String key) {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                misses.increment();
+                return null;
+            }
+        }
+        Path file = directory.resolve(key);
+        try {
+            byte[] data = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.increment();
+            return data;
+        } catch (NoSuchFileException e) {
+            // Lost to a concurrent eviction of an older copy, or removed behind our back
+            remove(key);
+            misses.increment();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void put(String key, byte[] data) {
+        List<String> evicted = new ArrayList<>();
+        try {
+            Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+            Files.write(temp, data);
+            Files.move(temp, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            Long previous = entries.put(key, (long) data.length);
+            totalBytes += data.length - (previous != null ? previous : 0);
+            evictTo(maxBytes, evicted);
+        }
+        delete(evicted);
+    }
+
+    /**
+     * Bytes of thumbnails on disk.
+     */
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    public synchronized int count() {
+        return entries.size();
+    }
+
+    private synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    // Keeps the most recently used entry even when it alone is over the limit
+    private void evictTo(long limit, List<String> evicted) {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > limit && entries.size() > 1) {
+            Map.Entry<String, Long> entry = eldest.next();
+            totalBytes -= entry.getValue();
+            evicted.add(entry.getKey());
+            eldest.remove();
+        }
+    }
+
+    private void delete(List<String> keys) {
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(directory.resolve(key));
+            } catch (IOException e) {
+                log.warn("Could not delete evicted thumbnail {} - {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private void open() {
+        record CachedFile(Path path, long size, long lastUsed) {}
+        List<CachedFile> files = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> listing = Files.list(directory)) {
+                for (Path path : (Iterable<Path>) listing::iterator) {
+                    if (path.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                        // Left behind by a write that never completed
+                        Files.deleteIfExists(path);
+                    } else if (Files.isRegularFile(path)) {
+                        files.add(new CachedFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open thumbnail cache in " + directory.toAbsolutePath(), e);
+        }
+        files.sort(Comparator.comparingLong(CachedFile::lastUsed));
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            for (CachedFile file : files) {
+                entries.put(file.path().getFileName().toString(), file.size());
+                totalBytes += file.size();
+            }
+            evictTo(maxBytes, evicted);
+        }
+        delete(evicted);
+        log.info("Opened thumbnail cache in {} with {} thumbnails, {} KB",
+            directory.toAbsolutePath(), entries.size(), totalBytes / 1024);
+    }
+}
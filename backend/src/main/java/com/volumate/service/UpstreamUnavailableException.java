@@ -0,0 +1,17 @@
+package com.volumate.service;
+
+/**
+ * Signals that OpenFoodFacts could not give a definitive answer for a barcode
+ * (network failure, timeout, 5xx or an unreadable response), as opposed to the
+ * product simply not existing.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+    
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+    
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
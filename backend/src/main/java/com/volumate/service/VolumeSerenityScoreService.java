@@ -5,10 +5,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 @Slf4j
 public class VolumeSerenityScoreService {
     
+    private static final String NO_SATIETY_SCORE =
+        "Desværre ingen mæthedsscore kunne findes. Det kan være fordi det er en drikkevare.";
+    
     @Autowired
     private SatietyIndexService satietyIndexService;
     
@@ -18,18 +24,32 @@ public class VolumeSerenityScoreService {
         Integer satietyScore = satietyIndexService.calculateSatietyIndex(product);
 
         if (satietyScore == null) {
-            log.warn("Could not calculate satiety score for product: {}", product.getProductName());
-            return VolumeSerenityScore.cannotDetermine("Desværre ingen mæthedsscore kunne findes. Det kan være fordi det er en drikkevare.");
+            log.debug("Could not calculate satiety score for product: {}", product.getProductName());
+            return VolumeSerenityScore.cannotDetermine(NO_SATIETY_SCORE);
         }
 
         VolumeSerenityScore finalScore = createVolumeSerenityScore(satietyScore);
 
-        log.info("Final Volume Serenity Score: {} for product: {} - Rating: {}",
+        log.debug("Final Volume Serenity Score: {} for product: {} - Rating: {}",
                 finalScore.getScore(), product.getProductName(), finalScore.getRating());
 
         return finalScore;
     }
 
+    /**
+     * Scores many products in one go against the same satiety table version, in order.
+     */
+    public List<VolumeSerenityScore> calculateScores(List<Product> products) {
+        List<Integer> satietyScores = satietyIndexService.calculateSatietyIndices(products);
+        List<VolumeSerenityScore> scores = new ArrayList<>(satietyScores.size());
+        for (Integer satietyScore : satietyScores) {
+            scores.add(satietyScore != null
+                ? createVolumeSerenityScore(satietyScore)
+                : VolumeSerenityScore.cannotDetermine(NO_SATIETY_SCORE));
+        }
+        return scores;
+    }
+
     private VolumeSerenityScore createVolumeSerenityScore(int score) {
         String rating;
         String ratingColor;
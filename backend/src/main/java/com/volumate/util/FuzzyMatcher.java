@@ -0,0 +1,118 @@
+package com.volumate.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the dictionary key closest to a text by edit distance, without comparing the
+ * text against every key.
+ * <p>
+ * Every key is indexed by its character bigrams, padded at both ends. A text within
+ * {@code k} edits of a key shares all but at most {@code 2k} of its distinct bigrams with
+ * it, so only keys reaching that count (and within {@code k} characters of the text's
+ * length) are compared with a bounded Levenshtein distance. The closest key wins; equal
+ * distances are decided by position in the source map.
+ */
+public final class FuzzyMatcher<V> {
+
+    private static final char PAD = '\0';
+
+    private final String[] keys;
+    private final List<V> values;
+    // Bigram, packed into an int, to the indices of the keys containing it
+    private final Map<Integer, int[]> postings;
+
+    public FuzzyMatcher(Map<String, V> dictionary) {
+        this.keys = dictionary.keySet().toArray(new String[0]);
+        this.values = new ArrayList<>(dictionary.values());
+        Map<Integer, List<Integer>> building = new HashMap<>();
+        for (int k = 0; k < keys.length; k++) {
+            for (int bigram : bigrams(keys[k])) {
+                building.computeIfAbsent(bigram, b -> new ArrayList<>()).add(k);
+            }
+        }
+        this.postings = new HashMap<>();
+        building.forEach((bigram, ids) -> postings.put(bigram, ids.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Returns the value of the closest key within {@code maxEdits} edits of the text, or
+     * null if there is none or {@link System#nanoTime()} passes {@code deadlineNanos} first.
+     */
+    public V findClosest(CharSequence text, int maxEdits, long deadlineNanos) {
+        if (maxEdits <= 0) {
+            return null;
+        }
+        Set<Integer> grams = bigrams(text);
+        int[] shared = new int[keys.length];
+        for (int bigram : grams) {
+            int[] ids = postings.get(bigram);
+            if (ids != null) {
+                for (int id : ids) {
+                    shared[id]++;
+                }
+            }
+        }
+        int required = grams.size() - 2 * maxEdits;
+        int best = -1;
+        int bestDistance = maxEdits + 1;
+        for (int k = 0; k < keys.length; k++) {
+            if (shared[k] < required || Math.abs(keys[k].length() - text.length()) > maxEdits) {
+                continue;
+            }
+            if (System.nanoTime() - deadlineNanos > 0) {
+                return null;
+            }
+            int distance = distance(text, keys[k], bestDistance - 1);
+            if (distance < bestDistance) {
+                best = k;
+                bestDistance = distance;
+            }
+        }
+        return best >= 0 ? values.get(best) : null;
+    }
+
+    private static Set<Integer> bigrams(CharSequence text) {
+        Set<Integer> grams = new HashSet<>();
+        char previous = PAD;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            grams.add(previous << 16 | c);
+            previous = c;
+        }
+        grams.add(previous << 16 | PAD);
+        return grams;
+    }
+
+    /**
+     * Levenshtein distance between a and b, or {@code limit + 1} once it is certain to exceed the limit.
+     */
+    private static int distance(CharSequence a, String b, int limit) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+}
@@ -0,0 +1,73 @@
+package com.volumate.util;
+
+/**
+ * GS1 barcode (GTIN) validation and canonicalization.
+ * <p>
+ * A GTIN-8, UPC-A (GTIN-12), EAN-13 (GTIN-13) or GTIN-14 is the same number once padded
+ * with leading zeros to 14 digits, so every encoding of one product maps to a single
+ * canonical key: 8 digits when the padded form starts with six zeros, 13 digits when it
+ * starts with one (UPC-A becomes its EAN-13 form, as OpenFoodFacts keys it), otherwise
+ * all 14. The check digit is verified on the padded form.
+ */
+public final class Gtin {
+
+    private Gtin() {
+    }
+
+    /**
+     * Returns the canonical form of a barcode.
+     *
+     * @throws IllegalArgumentException if it is not 8, 12, 13 or 14 digits or its check digit is wrong
+     */
+    public static String canonicalize(String barcode) {
+        if (barcode == null) {
+            throw new IllegalArgumentException("Barcode is missing");
+        }
+        int length = barcode.length();
+        if (length != 8 && length != 12 && length != 13 && length != 14) {
+            throw new IllegalArgumentException("Barcode must be 8, 12, 13 or 14 digits: " + barcode);
+        }
+        for (int i = 0; i < length; i++) {
+            char c = barcode.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Barcode must be digits only: " + barcode);
+            }
+        }
+        if (checkDigit(barcode) != barcode.charAt(length - 1) - '0') {
+            throw new IllegalArgumentException("Barcode check digit is wrong: " + barcode);
+        }
+
+        String padded = "0".repeat(14 - length) + barcode;
+        if (padded.startsWith("000000")) {
+            return padded.substring(6);
+        }
+        if (padded.charAt(0) == '0') {
+            return padded.substring(1);
+        }
+        return padded;
+    }
+
+    /**
+     * Whether the barcode is a GTIN with a correct check digit.
+     */
+    public static boolean isValid(String barcode) {
+        try {
+            canonicalize(barcode);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Weights alternate 3, 1, 3, ... from the digit left of the check digit, whatever the length
+    private static int checkDigit(String barcode) {
+        int sum = 0;
+        boolean triple = true;
+        for (int i = barcode.length() - 2; i >= 0; i--) {
+            int digit = barcode.charAt(i) - '0';
+            sum += triple ? digit * 3 : digit;
+            triple = !triple;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,131 @@
+package com.volumate.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick automaton over a fixed set of keys, with the failure links folded into a
+ * complete transition table over the characters the keys use. Shared by the matchers in
+ * this package; walking it does not allocate.
+ */
+final class KeywordAutomaton {
+    
+    private final String[] keys;
+    private final char[] alphabet;
+    private final int[] transitions;
+    private final int[] keyAtState;
+    private final int[] nextKeyState;
+    
+    KeywordAutomaton(String[] keys) {
+        this.keys = keys;
+        
+        TreeSet<Character> characters = new TreeSet<>();
+        for (String key : keys) {
+            for (char c : key.toCharArray()) {
+                characters.add(c);
+            }
+        }
+        alphabet = new char[characters.size()];
+        int a = 0;
+        for (char c : characters) {
+            alphabet[a++] = c;
+        }
+        
+        // Trie, one map of children per state
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> keyAt = new ArrayList<>();
+        children.add(new HashMap<>());
+        keyAt.add(-1);
+        for (int k = 0; k < keys.length; k++) {
+            int state = 0;
+            for (char c : keys[k].toCharArray()) {
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    keyAt.add(-1);
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            if (!keys[k].isEmpty()) {
+                keyAt.set(state, k);
+            }
+        }
+        
+        // Breadth-first failure links folded into a complete transition table
+        int stateCount = children.size();
+        int width = alphabet.length;
+        transitions = new int[stateCount * width];
+        keyAtState = new int[stateCount];
+        nextKeyState = new int[stateCount];
+        int[] failure = new int[stateCount];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int state = 0; state < stateCount; state++) {
+            keyAtState[state] = keyAt.get(state);
+        }
+        nextKeyState[0] = -1;
+        for (int c = 0; c < width; c++) {
+            Integer child = children.get(0).get(alphabet[c]);
+            transitions[c] = child != null ? child : 0;
+            if (child != null) {
+                failure[child] = 0;
+                nextKeyState[child] = -1;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int c = 0; c < width; c++) {
+                Integer child = children.get(state).get(alphabet[c]);
+                if (child != null) {
+                    int fallback = transitions[failure[state] * width + c];
+                    failure[child] = fallback;
+                    nextKeyState[child] = keyAtState[fallback] >= 0 ? fallback : nextKeyState[fallback];
+                    transitions[state * width + c] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * width + c] = transitions[failure[state] * width + c];
+                }
+            }
+        }
+    }
+    
+    String key(int index) {
+        return keys[index];
+    }
+    
+    int keyCount() {
+        return keys.length;
+    }
+    
+    /**
+     * The state after reading {@code c} in {@code state}; 0 is the start state.
+     */
+    int next(int state, char c) {
+        int index = Arrays.binarySearch(alphabet, c);
+        return index >= 0 ? transitions[state * alphabet.length + index] : 0;
+    }
+    
+    /**
+     * The first state at or below {@code state} (along the failure links) where a key ends,
+     * or -1. Follow with {@link #nextMatch(int)} to visit every key ending here.
+     */
+    int firstMatch(int state) {
+        return keyAtState[state] >= 0 ? state : nextKeyState[state];
+    }
+    
+    int nextMatch(int matchState) {
+        return nextKeyState[matchState];
+    }
+    
+    int keyAt(int matchState) {
+        return keyAtState[matchState];
+    }
+}
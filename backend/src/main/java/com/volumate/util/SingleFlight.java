@@ -0,0 +1,46 @@
+package com.volumate.util;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one in-flight {@link Mono}.
+ * <p>
+ * The first caller for a key starts the call; everyone arriving before it terminates
+ * receives the same value, empty completion or error. A waiter that cancels only
+ * detaches itself - the shared call keeps running for the remaining waiters and is
+ * cancelled only when the last one leaves.
+ * Once the call terminates the key is released and the next caller starts a fresh one.
+ */
+public class SingleFlight<K, V> {
+    
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> shared(key, call));
+    }
+    
+    /**
+     * The in-flight call for the key, started on first subscription. A caller may get it
+     * just before it terminates and subscribe after, which runs the call again; that run
+     * must not release a newer call registered under the key since.
+     */
+    Mono<V> shared(K key, Supplier<Mono<V>> call) {
+        return inFlight.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<V>> self = new AtomicReference<>();
+            Mono<V> shared = Mono.defer(call)
+                .doFinally(signal -> inFlight.remove(k, self.get()))
+                .share();
+            self.set(shared);
+            return shared;
+        });
+    }
+    
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,32 @@
+package com.volumate.util;
+
+import java.util.List;
+
+/**
+ * Finds which of up to 64 terms occur anywhere in a text, as plain substrings, in one
+ * pass. The result is a bit mask with bit {@code i} set when term {@code i} occurs, the
+ * same as calling {@code text.contains(term)} for each term.
+ */
+public final class TermMatcher {
+    
+    private final KeywordAutomaton automaton;
+    
+    public TermMatcher(List<String> terms) {
+        if (terms.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " terms, got " + terms.size());
+        }
+        this.automaton = new KeywordAutomaton(terms.toArray(new String[0]));
+    }
+    
+    public long match(CharSequence text) {
+        long found = 0;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = automaton.next(state, text.charAt(i));
+            for (int matched = automaton.firstMatch(state); matched >= 0; matched = automaton.nextMatch(matched)) {
+                found |= 1L << automaton.keyAt(matched);
+            }
+        }
+        return found;
+    }
+}
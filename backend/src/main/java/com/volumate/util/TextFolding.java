@@ -0,0 +1,90 @@
+package com.volumate.util;
+
+import java.text.Normalizer;
+
+/**
+ * Folds food names into the form the satiety dictionary is keyed by, so spelling
+ * variants meet in one key: "Rugbrød", "rugbrod" and "RUGBROED" all fold to "rugbrod",
+ * "knækbrød" and "knaekbrod" to "knaekbrod".
+ * <ul>
+ *   <li>case is folded and diacritics dropped (é → e, ü → u, å → a)</li>
+ *   <li>æ and ä become "ae", ø, ö and œ become "o", ß becomes "ss"</li>
+ *   <li>the Danish digraphs "aa" and "oe" (for å and ø) become "a" and "o"</li>
+ *   <li>OpenFoodFacts language prefixes "da:", "en:" and "fr:" are removed at the start of the
+ *       text or after a comma, parenthesis or whitespace</li>
+ *   <li>leading and trailing whitespace is trimmed</li>
+ * </ul>
+ * The per-character replacements are computed once into a table; folding is a single
+ * pass without regular expressions.
+ */
+public final class TextFolding {
+    
+    // Replacements for U+0000..U+024F (Basic Latin to Latin Extended-B)
+    private static final String[] FOLDED = new String[0x250];
+    
+    static {
+        for (char c = 0; c < FOLDED.length; c++) {
+            char lower = Character.toLowerCase(c);
+            FOLDED[c] = switch (lower) {
+                case 'æ', 'ä' -> "ae";
+                case 'ø', 'ö', 'œ' -> "o";
+                case 'ß' -> "ss";
+                case 'đ' -> "d";
+                case 'ł' -> "l";
+                default -> Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "");
+            };
+        }
+    }
+    
+    private TextFolding() {
+    }
+    
+    public static String fold(CharSequence text) {
+        StringBuilder folded = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < FOLDED.length) {
+                String replacement = FOLDED[c];
+                for (int r = 0; r < replacement.length(); r++) {
+                    append(folded, replacement.charAt(r));
+                }
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                append(folded, Character.toLowerCase(c));
+            }
+        }
+        int start = 0;
+        int end = folded.length();
+        while (start < end && Character.isWhitespace(folded.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(folded.charAt(end - 1))) {
+            end--;
+        }
+        return folded.substring(start, end);
+    }
+    
+    private static void append(StringBuilder folded, char c) {
+        int length = folded.length();
+        char previous = length > 0 ? folded.charAt(length - 1) : 0;
+        if ((c == 'a' && previous == 'a') || (c == 'e' && previous == 'o')) {
+            // aa → a, oe → o
+            return;
+        }
+        // Only a prefix when the two letters start a tag, not when they end a word ("chicken: 40%")
+        if (c == ':' && length >= 2 && isLanguagePrefix(folded.charAt(length - 2), previous)
+            && (length == 2 || isTagStart(folded.charAt(length - 3)))) {
+            folded.setLength(length - 2);
+            return;
+        }
+        folded.append(c);
+    }
+    
+    private static boolean isTagStart(char before) {
+        return before == ',' || before == '(' || Character.isWhitespace(before);
+    }
+    
+    private static boolean isLanguagePrefix(char first, char second) {
+        return (first == 'd' && second == 'a') || (first == 'e' && second == 'n') || (first == 'f' && second == 'r');
+    }
+}
@@ -0,0 +1,96 @@
+package com.volumate.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the longest dictionary key occurring as a whole word in a text, in one pass.
+ * <p>
+ * The keys are compiled once into an Aho-Corasick automaton over the characters they
+ * use. Matching walks the text once, checks every key occurrence against the same
+ * word-boundary rule as the regex {@code \b} and keeps the longest key; equally long
+ * keys are decided by their position in the source map, which makes the result
+ * identical to testing {@code \bkey\b} for every key in iteration order. Matching does
+ * not allocate.
+ */
+public final class WholeWordMatcher<V> {
+    
+    private final KeywordAutomaton automaton;
+    private final List<V> values;
+    
+    public WholeWordMatcher(Map<String, V> dictionary) {
+        this.automaton = new KeywordAutomaton(dictionary.keySet().toArray(new String[0]));
+        this.values = new ArrayList<>(dictionary.values());
+    }
+    
+    /**
+     * Returns the value of the longest key found as a whole word in the text, or null.
+     */
+    public V findLongest(CharSequence text) {
+        int best = longestKeyIndex(text);
+        return best >= 0 ? values.get(best) : null;
+    }
+    
+    /**
+     * Returns the longest key found as a whole word in the text, or null.
+     */
+    public String findLongestKey(CharSequence text) {
+        int best = longestKeyIndex(text);
+        return best >= 0 ? automaton.key(best) : null;
+    }
+    
+    private int longestKeyIndex(CharSequence text) {
+        int length = text.length();
+        int state = 0;
+        int best = -1;
+        int bestLength = 0;
+        for (int i = 0; i < length; i++) {
+            state = automaton.next(state, text.charAt(i));
+            for (int matched = automaton.firstMatch(state); matched >= 0; matched = automaton.nextMatch(matched)) {
+                int key = automaton.keyAt(matched);
+                int keyLength = automaton.key(key).length();
+                if (best < 0 || keyLength > bestLength || (keyLength == bestLength && key < best)) {
+                    int end = i + 1;
+                    if (isBoundary(text, end - keyLength) && isBoundary(text, end)) {
+                        best = key;
+                        bestLength = keyLength;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+    
+    // Mirrors java.util.regex.Pattern.Bound for \b without UNICODE_CHARACTER_CLASS
+    private static boolean isBoundary(CharSequence text, int i) {
+        boolean left = false;
+        if (i > 0) {
+            int ch = Character.codePointBefore(text, i);
+            left = isWord(ch) || (Character.getType(ch) == Character.NON_SPACING_MARK && hasBaseCharacter(text, i - 1));
+        }
+        boolean right = false;
+        if (i < text.length()) {
+            int ch = Character.codePointAt(text, i);
+            right = isWord(ch) || (Character.getType(ch) == Character.NON_SPACING_MARK && hasBaseCharacter(text, i));
+        }
+        return left ^ right;
+    }
+    
+    private static boolean isWord(int ch) {
+        return ch == '_' || Character.isLetterOrDigit(ch);
+    }
+    
+    private static boolean hasBaseCharacter(CharSequence text, int i) {
+        for (int x = i; x >= 0; x--) {
+            int ch = Character.codePointAt(text, x);
+            if (Character.isLetterOrDigit(ch)) {
+                return true;
+            }
+            if (Character.getType(ch) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+CREATE TABLE IF NOT EXISTS products (
+    barcode       TEXT PRIMARY KEY,
+    payload       TEXT,
+    product_json  TEXT    NOT NULL,
+    score         INTEGER,
+    rating        TEXT,
+    rating_color  TEXT,
+    fetched_at    INTEGER NOT NULL
+);
+
+-- Full-text index over names, brands and categories for GET /products/search, kept up to
+-- date by ProductStore. Rows are numbered score first (see ProductStore.searchRowid), so
+-- reading matches in descending rowid order yields the best scored products first
+CREATE VIRTUAL TABLE IF NOT EXISTS product_search USING fts5(
+    barcode UNINDEXED,
+    name,
+    brands,
+    categories,
+    -- Prefixes up to 8 characters are indexed and read lazily; longer ones are merged per query
+    prefix = '2 3 4 5 6 7 8'
+);
+
+-- Which search row belongs to which product; id is the stable part of the row number
+CREATE TABLE IF NOT EXISTS product_search_docs (
+    id            INTEGER PRIMARY KEY,
+    barcode       TEXT    NOT NULL UNIQUE,
+    search_rowid  INTEGER NOT NULL
+);
@@ -0,0 +1,87 @@
+package com.volumate.controller;
+
+import com.volumate.config.AdminTokenInterceptor;
+import com.volumate.model.RescoreReport;
+import com.volumate.service.CatalogRescorer;
+import com.volumate.service.SatietyIndexService;
+import com.volumate.service.SatietyTable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class AdminControllerTest {
+
+    @Mock
+    private SatietyIndexService satietyIndexService;
+
+    @Mock
+    private CatalogRescorer catalogRescorer;
+
+    @Mock
+    private SatietyTable table;
+
+    @Test
+    @DisplayName("Should turn the satiety table reload off while no admin token is configured")
+    void shouldTurnReloadOffWithoutToken() throws Exception {
+        MockMvc mockMvc = mockMvc("");
+
+        mockMvc.perform(post("/admin/satiety-table/reload").header(AdminTokenInterceptor.HEADER, ""))
+            .andExpect(status().isNotFound());
+
+        verifyNoInteractions(satietyIndexService);
+    }
+
+    @Test
+    @DisplayName("Should reload the satiety table only with the configured admin token")
+    void shouldReloadWithToken() throws Exception {
+        MockMvc mockMvc = mockMvc("s3cret");
+        when(satietyIndexService.reload()).thenReturn(table);
+        when(table.getVersion()).thenReturn("2024-06");
+        when(table.getIndex()).thenReturn(Map.of("oats", 209));
+
+        mockMvc.perform(post("/admin/satiety-table/reload"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/admin/satiety-table/reload").header(AdminTokenInterceptor.HEADER, "s3cre"))
+            .andExpect(status().isUnauthorized());
+        verifyNoInteractions(satietyIndexService);
+
+        mockMvc.perform(post("/admin/satiety-table/reload").header(AdminTokenInterceptor.HEADER, "s3cret"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.version").value("2024-06"));
+    }
+
+    @Test
+    @DisplayName("Should start a catalog re-score only with the configured admin token")
+    void shouldRescoreWithToken() throws Exception {
+        when(catalogRescorer.start()).thenReturn(new RescoreReport());
+
+        mockMvc("").perform(post("/admin/rescore").header(AdminTokenInterceptor.HEADER, ""))
+            .andExpect(status().isNotFound());
+        MockMvc mockMvc = mockMvc("s3cret");
+        mockMvc.perform(post("/admin/rescore"))
+            .andExpect(status().isUnauthorized());
+        verifyNoInteractions(catalogRescorer);
+
+        mockMvc.perform(post("/admin/rescore").header(AdminTokenInterceptor.HEADER, "s3cret"))
+            .andExpect(status().isAccepted());
+        verify(catalogRescorer).start();
+    }
+
+    private MockMvc mockMvc(String token) {
+        return MockMvcBuilders.standaloneSetup(new AdminController(satietyIndexService, catalogRescorer))
+            .addMappedInterceptors(AdminTokenInterceptor.PATHS, new AdminTokenInterceptor(token))
+            .build();
+    }
+}
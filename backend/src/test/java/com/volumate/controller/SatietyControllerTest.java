@@ -0,0 +1,125 @@
+package com.volumate.controller;
+
+import com.volumate.service.SatietyIndexService;
+import com.volumate.service.SatietyIndexSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.mockito.Mockito.lenient;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class SatietyControllerTest {
+
+    private static final String ETAG = "\"3f2a\"";
+    private static final String GZIP_ETAG = "\"3f2a-gzip\"";
+    private static final byte[] JSON = "{\"oats\":209}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] GZIPPED = {0x1f, (byte) 0x8b, 8, 0};
+
+    @Mock
+    private SatietyIndexService satietyIndexService;
+
+    @Mock
+    private SatietyIndexSnapshot snapshot;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(satietyIndexService.getSnapshot()).thenReturn(snapshot);
+        lenient().when(snapshot.getEtag()).thenReturn(ETAG);
+        lenient().when(snapshot.getGzipEtag()).thenReturn(GZIP_ETAG);
+        lenient().when(snapshot.getJson()).thenReturn(JSON);
+        lenient().when(snapshot.getGzipped()).thenReturn(GZIPPED);
+        mockMvc = MockMvcBuilders.standaloneSetup(new SatietyController(satietyIndexService, 300)).build();
+    }
+
+    @Test
+    @DisplayName("Should serve the plain snapshot with its own ETag when gzip is not accepted")
+    void shouldServePlain() throws Exception {
+        request(null, null)
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+            .andExpect(content().bytes(JSON));
+    }
+
+    @Test
+    @DisplayName("Should serve the gzipped snapshot with the gzip ETag when gzip is accepted")
+    void shouldServeGzipped() throws Exception {
+        request("br, gzip;q=0.8", null)
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, GZIP_ETAG))
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+            .andExpect(content().bytes(GZIPPED));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 with the ETag of the requested encoding for either encoding's tag")
+    void shouldRevalidateAcrossEncodings() throws Exception {
+        notModified(null, ETAG, ETAG);
+        notModified(null, GZIP_ETAG, ETAG);
+        notModified("gzip", GZIP_ETAG, GZIP_ETAG);
+        notModified("gzip", ETAG, GZIP_ETAG);
+    }
+
+    @Test
+    @DisplayName("Should compare weak tags, tag lists and * by their opaque tag")
+    void shouldMatchWeakListsAndWildcard() throws Exception {
+        notModified(null, "W/" + ETAG, ETAG);
+        notModified("gzip", "W/" + GZIP_ETAG, GZIP_ETAG);
+        notModified(null, "\"old\", W/" + GZIP_ETAG, ETAG);
+        notModified("gzip", "*", GZIP_ETAG);
+    }
+
+    @Test
+    @DisplayName("Should serve the snapshot again once the table has changed")
+    void shouldServeChangedTable() throws Exception {
+        request(null, "\"old\", W/\"older\"")
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+            .andExpect(content().bytes(JSON));
+        request("gzip", "W/\"3f2a-gzip-old\"")
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, GZIP_ETAG))
+            .andExpect(content().bytes(GZIPPED));
+    }
+
+    private void notModified(String acceptEncoding, String ifNoneMatch, String etag) throws Exception {
+        request(acceptEncoding, ifNoneMatch)
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    private ResultActions request(String acceptEncoding, String ifNoneMatch) throws Exception {
+        var request = get("/satiety-index");
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request);
+    }
+}
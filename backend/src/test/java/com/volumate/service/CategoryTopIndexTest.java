@@ -0,0 +1,78 @@
+package com.volumate.service;
+
+import com.volumate.repository.ProductStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryTopIndexTest {
+
+    @Mock
+    private ProductStore productStore;
+
+    private CategoryTopIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CategoryTopIndex(productStore);
+        ReflectionTestUtils.setField(index, "perCategory", 3);
+    }
+
+    @Test
+    @DisplayName("Should keep the best scored products per category, replacing earlier scores")
+    void shouldKeepBestScoredProducts() {
+        index.record("1", "en:breads,da:rugbrød", 150);
+        index.record("2", "en:breads", 120);
+        index.record("3", "en:breads", 200);
+        index.record("4", "en:breads", 90);
+        index.record("2", "en:breads", 210);
+
+        assertEquals(List.of("2", "3", "1"), index.better("breads", null, null, 10));
+        assertEquals(List.of("2", "3"), index.better("breads", 150, null, 10));
+        assertEquals(List.of("1"), index.better("rugbrod", 100, null, 10));
+        assertEquals(List.of("3"), index.better("breads", 100, "2", 1));
+
+        index.record("3", "en:breads", null);
+        assertEquals(List.of("2", "1"), index.better("breads", null, null, 10));
+        assertEquals(List.of(), index.better("unknown", null, null, 10));
+    }
+
+    @Test
+    @DisplayName("Should take products out of categories they left, freeing their places")
+    void shouldDropLeftCategories() {
+        index.record("1", "en:breads", 300);
+        index.record("2", "en:breads", 200);
+        index.record("3", "en:breads", 100);
+        index.record("1", "en:cakes", 300);
+        index.record("4", "en:breads", 50);
+
+        assertEquals(List.of("2", "3", "4"), index.better("breads", null, null, 10));
+        assertEquals(List.of("1"), index.better("cakes", null, null, 10));
+
+        // 4 was pushed out by 5, so moving it away must leave 5 alone
+        index.record("5", "en:breads", 150);
+        index.record("4", "en:cakes", 60);
+        assertEquals(List.of("2", "5", "3"), index.better("breads", null, null, 10));
+        assertEquals(List.of("1", "4"), index.better("cakes", null, null, 10));
+
+        index.record("1", "en:cakes", null);
+        assertEquals(List.of("4"), index.better("cakes", null, null, 10));
+    }
+
+    @Test
+    @DisplayName("Should fold categories and keep them most specific last")
+    void shouldFoldCategories() {
+        assertEquals(List.of("breads", "rye breads", "rugbrod"),
+            CategoryTopIndex.categoriesOf("en:breads, en:rye breads,da:Rugbrød,da:rugbrod"));
+        assertEquals(List.of(), CategoryTopIndex.categoriesOf(null));
+    }
+}
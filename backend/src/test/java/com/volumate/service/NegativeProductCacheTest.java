@@ -0,0 +1,108 @@
+package com.volumate.service;
+
+import com.volumate.service.NegativeProductCache.Entry;
+import com.volumate.service.NegativeProductCache.Kind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NegativeProductCacheTest {
+
+    private static final String BARCODE = "5701234567899";
+
+    private NegativeProductCache cache;
+    // Clock readings around the last recordNotFound call
+    private long recordedBefore;
+    private long recordedAfter;
+
+    @BeforeEach
+    void setUp() {
+        cache = new NegativeProductCache(new SimpleMeterRegistry(), 100, 86400);
+        ReflectionTestUtils.setField(cache, "notFoundTtlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "errorTtlSeconds", 30L);
+        ReflectionTestUtils.setField(cache, "exponentialBackoff", true);
+    }
+
+    @Test
+    @DisplayName("Should double the not found block with every consecutive miss up to the max ttl")
+    void shouldBackOffNotFound() {
+        long[] expected = {300, 600, 1200, 2400, 4800, 9600, 19200, 38400, 76800, 86400, 86400};
+        for (int miss = 1; miss <= expected.length; miss++) {
+            Entry entry = recordNotFound();
+            assertEquals(Kind.NOT_FOUND, entry.getKind());
+            assertEquals(miss, entry.getMisses());
+            assertBlockedFor(expected[miss - 1], entry);
+        }
+        // The shift is capped, so a long miss history cannot overflow past the max ttl
+        for (int miss = expected.length + 1; miss <= 70; miss++) {
+            recordNotFound();
+        }
+        assertBlockedFor(86400, recordNotFound());
+    }
+
+    @Test
+    @DisplayName("Should block not found barcodes for the base ttl on every miss without backoff")
+    void shouldNotBackOffWhenDisabled() {
+        ReflectionTestUtils.setField(cache, "exponentialBackoff", false);
+        recordNotFound();
+        recordNotFound();
+
+        Entry entry = recordNotFound();
+
+        assertEquals(3, entry.getMisses());
+        assertBlockedFor(300, entry);
+    }
+
+    @Test
+    @DisplayName("Should block upstream errors for the error ttl and keep the not found history")
+    void shouldBlockUpstreamErrorsBriefly() {
+        recordNotFound();
+        recordNotFound();
+
+        long before = System.currentTimeMillis();
+        cache.recordUpstreamError(BARCODE, new IllegalStateException("503 Service Unavailable"));
+        long after = System.currentTimeMillis();
+        Entry error = cache.lookup(BARCODE);
+
+        assertEquals(Kind.UPSTREAM_ERROR, error.getKind());
+        assertEquals("503 Service Unavailable", error.getErrorMessage());
+        assertEquals(2, error.getMisses());
+        assertBlocked(30, error, before, after);
+        // The next miss continues the backoff where the error left it
+        assertBlockedFor(1200, recordNotFound());
+    }
+
+    @Test
+    @DisplayName("Should forget the miss history once the product is found")
+    void shouldResetOnFound() {
+        recordNotFound();
+        recordNotFound();
+
+        cache.recordFound(BARCODE);
+
+        assertNull(cache.lookup(BARCODE));
+        assertEquals(1, recordNotFound().getMisses());
+    }
+
+    private Entry recordNotFound() {
+        recordedBefore = System.currentTimeMillis();
+        cache.recordNotFound(BARCODE);
+        recordedAfter = System.currentTimeMillis();
+        return cache.lookup(BARCODE);
+    }
+
+    private void assertBlockedFor(long seconds, Entry entry) {
+        assertBlocked(seconds, entry, recordedBefore, recordedAfter);
+    }
+
+    // Blocked until the recording time plus the ttl, read from both ends of the recording call
+    private static void assertBlocked(long seconds, Entry entry, long before, long after) {
+        assertNotNull(entry);
+        assertTrue(entry.isBlocking(before + seconds * 1000 - 1), "blocked for less than " + seconds + "s");
+        assertFalse(entry.isBlocking(after + seconds * 1000), "blocked for more than " + seconds + "s");
+    }
+}
@@ -0,0 +1,203 @@
+package com.volumate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volumate.model.ImportReport;
+import com.volumate.model.Nutriments.Nutrient;
+import com.volumate.model.Product;
+import com.volumate.repository.ProductStore;
+import com.volumate.service.VolumeSerenityScoreService.VolumeSerenityScore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OpenFoodFactsImporterTest {
+
+    // Valid EAN-13 codes, one per line of the test exports
+    private static final List<String> CODES = List.of(
+        "5700000000011", "5700000000028", "5700000000035", "5700000000042", "5700000000059", "5700000000066");
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private VolumeSerenityScoreService scoreService;
+
+    @Mock
+    private CategoryTopIndex categoryTopIndex;
+
+    private JdbcTemplate jdbcTemplate;
+    private ProductStore productStore;
+    private OpenFoodFactsImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:sqlite:" + directory.resolve("test.db"));
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        productStore = new ProductStore(jdbcTemplate, new ObjectMapper());
+        importer = new OpenFoodFactsImporter(productStore, scoreService, categoryTopIndex, new ObjectMapper());
+        ReflectionTestUtils.setField(importer, "chunkSize", 2);
+        ReflectionTestUtils.setField(importer, "workers", 2);
+        ReflectionTestUtils.setField(importer, "progressIntervalSeconds", 60L);
+        ReflectionTestUtils.setField(importer, "extraNutrimentKeys", Set.of());
+        lenient().when(scoreService.calculateScore(any())).thenReturn(new VolumeSerenityScore(150, "Good", "green"));
+    }
+
+    @Test
+    @DisplayName("Should import JSONL lines under canonical codes and count the lines it skips")
+    void shouldImportJsonl() throws Exception {
+        Path file = write("products.jsonl",
+            "{\"code\":\"" + CODES.get(0) + "\",\"product_name\":\"Rugbrød\",\"categories\":\"en:breads\"}",
+            "{\"code\":\"036000291452\",\"product_name\":\"Cola\"}",
+            "not json",
+            "{\"code\":\"5700000000012\",\"product_name\":\"Wrong check digit\"}",
+            "{\"product_name\":\"No code\"}",
+            "");
+
+        ImportReport report = importer.importFile(file);
+
+        assertEquals(6, report.getLinesRead());
+        assertEquals(2, report.getProductsStored());
+        assertEquals(4, report.getLinesSkipped());
+        assertEquals("Rugbrød", productStore.findByBarcode(CODES.get(0)).orElseThrow().getProduct().getProductName());
+        // UPC-A is stored under its EAN-13 form
+        assertTrue(productStore.findByBarcode("0036000291452").isPresent());
+        assertEquals("6", Files.readString(checkpoint(file)));
+    }
+
+    @Test
+    @DisplayName("Should import the gzipped tab-separated export by header names")
+    void shouldImportGzippedCsv() throws Exception {
+        Path file = directory.resolve("products.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(String.join("\n",
+                "product_name\tcode\tcategories\tproteins_100g\tfiber_100g",
+                "Havregryn\t" + CODES.get(0) + "\ten:oats\t13.5\tabc",
+                "Short row\t" + CODES.get(1),
+                "Bad code\t5700000000012\ten:oats\t1\t1").getBytes(StandardCharsets.UTF_8));
+        }
+
+        ImportReport report = importer.importFile(file);
+
+        assertEquals(3, report.getLinesRead());
+        assertEquals(2, report.getProductsStored());
+        assertEquals(1, report.getLinesSkipped());
+        Product oats = productStore.findByBarcode(CODES.get(0)).orElseThrow().getProduct();
+        assertEquals("Havregryn", oats.getProductName());
+        assertEquals("en:oats", oats.getCategories());
+        assertEquals(13.5, oats.getNutriments().get(Nutrient.PROTEINS));
+        // Malformed values are left out
+        assertTrue(Double.isNaN(oats.getNutriments().get(Nutrient.FIBER)));
+        assertNull(productStore.findByBarcode(CODES.get(1)).orElseThrow().getProduct().getCategories());
+    }
+
+    @Test
+    @DisplayName("Should checkpoint only past chunks stored without gaps, even when later ones finish first")
+    void shouldCheckpointContiguousChunks() throws Exception {
+        Path file = write("products.jsonl", jsonLines(4));
+        CountDownLatch secondChunkStored = new CountDownLatch(1);
+        AtomicBoolean checkpointedEarly = new AtomicBoolean();
+        recordStored(CODES.get(2), secondChunkStored);
+        // The first chunk finishes only after the second one is stored
+        when(scoreService.calculateScore(any())).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            if (product.getBarcode().equals(CODES.get(0))) {
+                assertTrue(secondChunkStored.await(10, TimeUnit.SECONDS));
+                checkpointedEarly.set(Files.exists(checkpoint(file)));
+            }
+            return new VolumeSerenityScore(150, "Good", "green");
+        });
+
+        ImportReport report = importer.importFile(file);
+
+        assertFalse(checkpointedEarly.get());
+        assertEquals(4, report.getProductsStored());
+        assertEquals("4", Files.readString(checkpoint(file)));
+    }
+
+    @Test
+    @DisplayName("Should fail on a worker failure and resume after the last contiguous chunk without storing it again")
+    void shouldResumeAfterFailure() throws Exception {
+        ReflectionTestUtils.setField(importer, "workers", 3);
+        Path file = write("products.jsonl", jsonLines(6));
+        CountDownLatch othersStored = new CountDownLatch(2);
+        recordStored(CODES.get(0), othersStored);
+        recordStored(CODES.get(4), othersStored);
+        AtomicBoolean failing = new AtomicBoolean(true);
+        // The middle chunk fails once the chunks around it are stored
+        when(scoreService.calculateScore(any())).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            if (failing.get() && product.getBarcode().equals(CODES.get(2))) {
+                assertTrue(othersStored.await(10, TimeUnit.SECONDS));
+                throw new AssertionError("worker failure");
+            }
+            return new VolumeSerenityScore(150, "Good", "green");
+        });
+
+        assertThrows(IOException.class, () -> importer.importFile(file));
+        assertEquals("2", Files.readString(checkpoint(file)));
+
+        failing.set(false);
+        jdbcTemplate.update("UPDATE products SET fetched_at = 0");
+        ImportReport report = importer.importFile(file);
+
+        assertEquals(2, report.getResumedFromLine());
+        assertEquals(4, report.getLinesRead());
+        assertEquals(4, report.getProductsStored());
+        assertEquals(6, productStore.count());
+        // The lines before the checkpoint were not read again
+        assertEquals(0, productStore.findByBarcode(CODES.get(0)).orElseThrow().getFetchedAt().toEpochMilli());
+        assertNotEquals(0, productStore.findByBarcode(CODES.get(2)).orElseThrow().getFetchedAt().toEpochMilli());
+        assertEquals("6", Files.readString(checkpoint(file)));
+    }
+
+    // Counts the latch down once the product is stored, which the writer signals by recording it
+    private void recordStored(String barcode, CountDownLatch latch) {
+        lenient().doAnswer(invocation -> {
+            latch.countDown();
+            return null;
+        }).when(categoryTopIndex).record(eq(barcode), any(), any());
+    }
+
+    private static String[] jsonLines(int count) {
+        return CODES.subList(0, count).stream()
+            .map(code -> "{\"code\":\"" + code + "\",\"product_name\":\"Product " + code + "\"}")
+            .toArray(String[]::new);
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.writeString(directory.resolve(name), String.join("\n", lines) + "\n");
+    }
+
+    private static Path checkpoint(Path file) {
+        return file.resolveSibling(file.getFileName() + ".checkpoint");
+    }
+}
@@ -0,0 +1,45 @@
+package com.volumate.service;
+
+import com.volumate.service.ProductImageService.ThumbnailSize;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductImageServiceTest {
+
+    @Test
+    @DisplayName("Should render every size from one image without scaling up, and only proxy OpenFoodFacts image paths")
+    void shouldRenderThumbnails() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1000, 300, BufferedImage.TYPE_INT_ARGB), "png", png);
+
+        Map<ThumbnailSize, byte[]> thumbnails = ProductImageService.renderAll(png.toByteArray(), 0.8f);
+
+        assertEquals(3, thumbnails.size());
+        BufferedImage small = ImageIO.read(new ByteArrayInputStream(thumbnails.get(ThumbnailSize.SMALL)));
+        assertEquals(120, small.getWidth());
+        assertEquals(36, small.getHeight());
+        BufferedImage large = ImageIO.read(new ByteArrayInputStream(thumbnails.get(ThumbnailSize.LARGE)));
+        assertEquals(400, large.getWidth());
+
+        ByteArrayOutputStream tiny = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(80, 100, BufferedImage.TYPE_INT_RGB), "png", tiny);
+        BufferedImage unscaled = ImageIO.read(new ByteArrayInputStream(
+            ProductImageService.renderAll(tiny.toByteArray(), 0.8f).get(ThumbnailSize.LARGE)));
+        assertEquals(80, unscaled.getWidth());
+        assertNull(ProductImageService.renderAll(new byte[] {1, 2, 3}, 0.8f));
+
+        assertEquals("/images/products/570/123/456/7899/front_da.3.400.jpg", ProductImageService.imagePath(
+            "https://images.openfoodfacts.org/images/products/570/123/456/7899/front_da.3.400.jpg"));
+        assertNull(ProductImageService.imagePath("https://example.com/images/products/../../secret"));
+        assertNull(ProductImageService.imagePath("https://example.com/other/image.jpg"));
+        assertNull(ProductImageService.imagePath(null));
+    }
+}
@@ -0,0 +1,100 @@
+package com.volumate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volumate.model.Product;
+import com.volumate.model.StoredProduct;
+import com.volumate.repository.ProductStore;
+import com.volumate.repository.ProductStore.ScoreUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchServiceTest {
+
+    private static final Instant FETCHED_AT = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+    private ProductStore productStore;
+    private ProductSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:sqlite:" + directory.resolve("test.db"));
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        productStore = new ProductStore(jdbcTemplate, new ObjectMapper());
+        searchService = new ProductSearchService(productStore);
+    }
+
+    @Test
+    @DisplayName("Should turn every folded word of the input into a required prefix")
+    void shouldBuildPrefixQuery() {
+        assertEquals("\"rugbrod\"*", ProductSearchService.matchQuery("Rugbrød"));
+        assertEquals("\"banan\"* \"ch\"*", ProductSearchService.matchQuery("  Banan, ch"));
+        // Quotes and FTS5 operators are never passed through
+        assertEquals("\"a\"* \"or\"* \"b\"*", ProductSearchService.matchQuery("a\" OR b*"));
+        assertNull(ProductSearchService.matchQuery("..."));
+        assertNull(ProductSearchService.matchQuery(null));
+    }
+
+    @Test
+    @DisplayName("Should keep search results best scored first through stores and re-scores")
+    void shouldSearchBestScoredFirst() {
+        productStore.saveAll(List.of(
+            stored("1", "Rugbrød", 150),
+            stored("2", "Rugbrød med solsikke", 200),
+            stored("3", "Rugbrødschips", null),
+            stored("4", "Franskbrød", 90)));
+        assertEquals(List.of("2", "1", "3"), search("rugbr"));
+        assertEquals(4, productStore.countSearchable());
+
+        // A re-score moves the product; one based on a row stored since is left out
+        List<String> changed = productStore.updateScores(List.of(
+            new ScoreUpdate("1", 250, "Good", "green", FETCHED_AT.toEpochMilli()),
+            new ScoreUpdate("3", 300, "Good", "green", FETCHED_AT.toEpochMilli() - 1)));
+        assertEquals(List.of("3"), changed);
+        assertEquals(List.of("1", "2", "3"), search("rugbr"));
+
+        // Storing again replaces the indexed text and keeps one search row per product
+        productStore.saveAll(List.of(stored("2", "Solsikkebrød", 200), stored("3", "Rugbrødschips", 120)));
+        assertEquals(List.of("1", "3"), search("rugbr"));
+        assertEquals(List.of("2"), search("solsikke"));
+        assertEquals(4, productStore.countSearchable());
+    }
+
+    @Test
+    @DisplayName("Should add products stored before the search index to it once")
+    void shouldBackfillIndex() {
+        productStore.saveAll(List.of(stored("1", "Havregryn", 209), stored("2", "Havrefras", 100)));
+        jdbcTemplate.update("DELETE FROM product_search WHERE barcode = '1'");
+        jdbcTemplate.update("DELETE FROM product_search_docs WHERE barcode = '1'");
+        assertEquals(List.of("2"), search("havre"));
+
+        assertEquals(1, productStore.indexMissingForSearch(productStore.findPageAfter(null, 10)));
+        assertEquals(0, productStore.indexMissingForSearch(productStore.findPageAfter(null, 10)));
+        assertEquals(List.of("1", "2"), search("havre"));
+    }
+
+    private List<String> search(String query) {
+        return searchService.search(query, 10).block().stream().map(Product::getBarcode).toList();
+    }
+
+    private static StoredProduct stored(String barcode, String name, Integer score) {
+        Product product = Product.builder().barcode(barcode).productName(name).build();
+        return new StoredProduct(barcode, "{}", product, score, null, null, FETCHED_AT);
+    }
+}
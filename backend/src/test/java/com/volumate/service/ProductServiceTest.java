@@ -0,0 +1,64 @@
+package com.volumate.service;
+
+import com.volumate.model.BatchLookupResult;
+import com.volumate.model.BatchLookupResult.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductServiceTest {
+
+    @Mock
+    private OpenFoodFactsService openFoodFactsService;
+
+    @Mock
+    private ScoreCache scoreCache;
+
+    @Mock
+    private ProductStoreService productStoreService;
+
+    @Mock
+    private CategoryTopIndex categoryTopIndex;
+
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        productService = new ProductService(openFoodFactsService, scoreCache, productStoreService, categoryTopIndex);
+        ReflectionTestUtils.setField(productService, "batchConcurrency", 4);
+    }
+
+    @Test
+    @DisplayName("Should answer missing and invalid codes in a batch without failing the others")
+    void shouldKeepBatchGoingPastBadCodes() {
+        when(openFoodFactsService.getKnownProducts(any())).thenReturn(Mono.just(Map.of()));
+        when(openFoodFactsService.getProductByBarcode("5701234567899")).thenReturn(Mono.empty());
+
+        List<BatchLookupResult> results = productService
+            .getProductsWithScore(Arrays.asList(null, "5701234567890", "5701234567899", null))
+            .collectList()
+            .block();
+
+        assertEquals(3, results.size());
+        assertNull(results.get(0).getBarcode());
+        assertEquals(Status.INVALID, results.get(0).getStatus());
+        assertEquals("Barcode is missing", results.get(0).getError());
+        assertEquals(Status.INVALID, results.get(1).getStatus());
+        assertEquals("5701234567899", results.get(2).getBarcode());
+        assertEquals(Status.NOT_FOUND, results.get(2).getStatus());
+    }
+}
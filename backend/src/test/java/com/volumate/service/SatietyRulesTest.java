@@ -0,0 +1,69 @@
+package com.volumate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.volumate.model.Product;
+import com.volumate.model.SatietyTableDefinition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SatietyRulesTest {
+
+    private final Cache<SatietyTable.TokenKey, Integer> resolved = Caffeine.newBuilder().build();
+    private final SatietyTable table;
+
+    SatietyRulesTest() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/satiety/satiety-table.json")) {
+            table = SatietyTable.compile(new ObjectMapper().readValue(in, SatietyTableDefinition.class), resolved);
+        }
+    }
+
+    @Test
+    @DisplayName("Should match inflected and misspelled food words fuzzily")
+    void shouldMatchInflectedWords() {
+        SatietyRules.Match match = evaluate("Bananer", null, null);
+        assertNotNull(match);
+        assertEquals("fuzzy", match.rule().getName());
+    }
+
+    @Test
+    @DisplayName("Should leave drinks and short everyday words unscored instead of guessing")
+    void shouldNotGuessDrinksAndShortWords() {
+        assertNull(evaluate("Lemonade", null, "water, sugar, salt, natural flavour"));
+        assertNull(evaluate("Hyldeblomst saft", null, "vand, sukker, salt, citronsyre, aroma"));
+        assertNull(evaluate("Pilsner", null, "beer"));
+        assertNull(evaluate("Side dish", null, "dish"));
+        assertNull(evaluate("Curry", null, "paste"));
+    }
+
+    @Test
+    @DisplayName("Should keep cheese names out of the name lookup without catching \"øst\"")
+    void shouldExcludeOnlyCheeseNames() {
+        SatietyRules.Match match = evaluate("Østersø sild", null, null);
+        assertNotNull(match);
+        assertEquals("product-name", match.rule().getName());
+        assertNull(evaluate("Hytteost med sild", null, null));
+    }
+
+    @Test
+    @DisplayName("Should memoize short tokens but not whole product names")
+    void shouldNotMemoizeProductNames() {
+        assertNull(evaluate("Hyldeblomst saft med citron", null, "hyldeblomst"));
+
+        assertFalse(resolved.asMap().keySet().stream().anyMatch(key -> key.token().contains(" ")));
+        assertTrue(resolved.asMap().keySet().stream().anyMatch(key -> key.token().equals("hyldeblomst")));
+    }
+
+    private SatietyRules.Match evaluate(String name, String categories, String ingredients) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setCategories(categories);
+        product.setIngredientsText(ingredients);
+        return SatietyRules.evaluate(table, ProductFeatures.of(product));
+    }
+}
@@ -0,0 +1,73 @@
+package com.volumate.service;
+
+import com.volumate.model.Nutriments;
+import com.volumate.model.Nutriments.Nutrient;
+import com.volumate.model.Product;
+import com.volumate.service.VolumeSerenityScoreService.VolumeSerenityScore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScoreCacheTest {
+
+    @Mock
+    private VolumeSerenityScoreService scoreService;
+
+    @Mock
+    private SatietyIndexService satietyIndexService;
+
+    private ScoreCache scoreCache;
+
+    @BeforeEach
+    void setUp() {
+        scoreCache = new ScoreCache(scoreService, satietyIndexService, new SimpleMeterRegistry(), 100);
+        when(satietyIndexService.getTableVersion()).thenReturn("4");
+        when(scoreService.calculateScore(any())).thenAnswer(invocation ->
+            new VolumeSerenityScore(((Product) invocation.getArgument(0)).getCategories().length(), "Good", "green"));
+    }
+
+    @Test
+    @DisplayName("Should reuse a score for the same scoring inputs, whatever else differs")
+    void shouldReuseScoreForSameContent() {
+        Product product = product("en:breads");
+        Product copy = product.toBuilder().possiblyStale(true).volumeSerenityScore(12).brands("Other").build();
+
+        assertEquals(9, scoreCache.score("1", product).getScore());
+        assertEquals(9, scoreCache.score("1", copy).getScore());
+        verify(scoreService, times(1)).calculateScore(any());
+    }
+
+    @Test
+    @DisplayName("Should score a product again when an input it is scored from changes")
+    void shouldRescoreChangedContent() {
+        Product product = product("en:breads");
+        scoreCache.score("1", product);
+
+        assertEquals(10, scoreCache.score("1", product.toBuilder().categories("en:cereals").build()).getScore());
+        Nutriments nutriments = new Nutriments();
+        nutriments.set(Nutrient.FIBER, 9);
+        scoreCache.score("1", product.toBuilder().nutriments(nutriments).build());
+        scoreCache.score("1", product.toBuilder().keywords(List.of("rye")).build());
+        verify(scoreService, times(4)).calculateScore(any());
+    }
+
+    private static Product product(String categories) {
+        Nutriments nutriments = new Nutriments();
+        nutriments.set(Nutrient.FIBER, 6);
+        return Product.builder().barcode("1").productName("Rugbrød").categories(categories)
+            .keywords(List.of("rugbrod")).nutriments(nutriments).build();
+    }
+}
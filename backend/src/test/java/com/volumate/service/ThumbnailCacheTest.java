@@ -0,0 +1,52 @@
+package com.volumate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should delete the least recently used thumbnails when over the size limit")
+    void shouldEvictLeastRecentlyUsed() {
+        ThumbnailCache cache = new ThumbnailCache(new SimpleMeterRegistry(), directory.toString(), 300);
+        cache.put("a", new byte[100]);
+        cache.put("b", new byte[100]);
+        cache.put("c", new byte[100]);
+        assertNotNull(cache.get("a"));
+
+        cache.put("d", new byte[100]);
+
+        assertNull(cache.get("b"));
+        assertFalse(Files.exists(directory.resolve("b")));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+        assertEquals(300, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should reopen the thumbnails on disk and drop unfinished writes")
+    void shouldReopenFromDisk() throws Exception {
+        ThumbnailCache cache = new ThumbnailCache(new SimpleMeterRegistry(), directory.toString(), 1000);
+        cache.put("a", new byte[] {1, 2, 3});
+        cache.put("b", new byte[] {4, 5});
+        Files.write(directory.resolve("c123.tmp"), new byte[50]);
+
+        ThumbnailCache reopened = new ThumbnailCache(new SimpleMeterRegistry(), directory.toString(), 1000);
+
+        assertEquals(2, reopened.count());
+        assertEquals(5, reopened.size());
+        assertArrayEquals(new byte[] {1, 2, 3}, reopened.get("a"));
+        assertFalse(Files.exists(directory.resolve("c123.tmp")));
+    }
+}
@@ -0,0 +1,82 @@
+package com.volumate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyMatcherTest {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+
+    FuzzyMatcherTest() {
+        List<String> keys = List.of("banan", "havregryn", "smor", "ost", "kartofler", "rugbrod", "aeble", "pasta");
+        for (int i = 0; i < keys.size(); i++) {
+            dictionary.put(keys.get(i), i);
+        }
+    }
+
+    @Test
+    @DisplayName("Should find inflected and misspelled words within the allowed edits")
+    void shouldFindCloseKeys() {
+        FuzzyMatcher<Integer> matcher = new FuzzyMatcher<>(dictionary);
+        long deadline = System.nanoTime() + NO_DEADLINE;
+
+        assertEquals(0, matcher.findClosest("bananer", 2, deadline));
+        assertEquals(1, matcher.findClosest("havregrynet", 2, deadline));
+        assertEquals(4, matcher.findClosest("kartoffler", 1, deadline));
+        assertNull(matcher.findClosest("bananer", 1, deadline));
+        assertNull(matcher.findClosest("chokolade", 2, deadline));
+        assertNull(matcher.findClosest("bananer", 2, System.nanoTime() - 1));
+    }
+
+    @Test
+    @DisplayName("Should agree with a full edit distance scan on generated texts")
+    void shouldAgreeWithLinearScan() {
+        FuzzyMatcher<Integer> matcher = new FuzzyMatcher<>(dictionary);
+        List<String> keys = List.copyOf(dictionary.keySet());
+        String alphabet = "abegkmnorstvy";
+        Random random = new Random(11);
+        for (int n = 0; n < 5000; n++) {
+            StringBuilder text = new StringBuilder(keys.get(random.nextInt(keys.size())));
+            for (int edits = random.nextInt(4); edits > 0 && text.length() > 0; edits--) {
+                int at = random.nextInt(text.length());
+                char c = alphabet.charAt(random.nextInt(alphabet.length()));
+                switch (random.nextInt(3)) {
+                    case 0 -> text.setCharAt(at, c);
+                    case 1 -> text.insert(at, c);
+                    default -> text.deleteCharAt(at);
+                }
+            }
+            int maxEdits = 1 + random.nextInt(2);
+            Integer expected = null;
+            int bestDistance = maxEdits + 1;
+            for (String key : keys) {
+                int distance = levenshtein(text.toString(), key);
+                if (distance < bestDistance) {
+                    expected = dictionary.get(key);
+                    bestDistance = distance;
+                }
+            }
+            assertEquals(expected, matcher.findClosest(text, maxEdits, System.nanoTime() + NO_DEADLINE), text.toString());
+        }
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                d[i][j] = i == 0 ? j : j == 0 ? i : Math.min(d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1),
+                    Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,35 @@
+package com.volumate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GtinTest {
+
+    @Test
+    @DisplayName("Should map every form of one code to the same canonical key")
+    void shouldCanonicalizeEquivalentForms() {
+        assertEquals("0036000291452", Gtin.canonicalize("036000291452"));
+        assertEquals("0036000291452", Gtin.canonicalize("0036000291452"));
+        assertEquals("0036000291452", Gtin.canonicalize("00036000291452"));
+        assertEquals("96385074", Gtin.canonicalize("96385074"));
+        assertEquals("96385074", Gtin.canonicalize("0000096385074"));
+        assertEquals("96385074", Gtin.canonicalize("00000096385074"));
+        assertEquals("5701234567899", Gtin.canonicalize("5701234567899"));
+        assertEquals("10036000291459", Gtin.canonicalize("10036000291459"));
+    }
+
+    @Test
+    @DisplayName("Should reject wrong check digits, lengths and characters")
+    void shouldRejectInvalidCodes() {
+        assertFalse(Gtin.isValid("5701234567898"));
+        assertFalse(Gtin.isValid("036000291453"));
+        assertFalse(Gtin.isValid("96385075"));
+        assertFalse(Gtin.isValid("123456789"));
+        assertFalse(Gtin.isValid("57012345678a9"));
+        assertFalse(Gtin.isValid(null));
+        assertThrows(IllegalArgumentException.class, () -> Gtin.canonicalize("3017620422004"));
+        assertTrue(Gtin.isValid("3017620422003"));
+    }
+}
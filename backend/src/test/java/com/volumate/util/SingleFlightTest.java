@@ -0,0 +1,139 @@
+package com.volumate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    
+    @Test
+    @DisplayName("Should share one call among concurrent callers for the same key")
+    void shouldShareOneCallAmongConcurrentCallers() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> upstream = Sinks.one();
+        AtomicReference<String> first = new AtomicReference<>();
+        AtomicReference<String> second = new AtomicReference<>();
+        
+        // When
+        singleFlight.execute("5701234567899", () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        }).subscribe(first::set);
+        singleFlight.execute("5701234567899", () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        }).subscribe(second::set);
+        upstream.tryEmitValue("product");
+        
+        // Then
+        assertEquals(1, calls.get());
+        assertEquals("product", first.get());
+        assertEquals("product", second.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+    
+    @Test
+    @DisplayName("Should propagate errors to every waiter and release the key")
+    void shouldPropagateErrorsToEveryWaiter() {
+        // Given
+        Sinks.One<String> upstream = Sinks.one();
+        AtomicReference<Throwable> first = new AtomicReference<>();
+        AtomicReference<Throwable> second = new AtomicReference<>();
+        
+        // When
+        singleFlight.execute("5701234567899", upstream::asMono).subscribe(v -> {}, first::set);
+        singleFlight.execute("5701234567899", upstream::asMono).subscribe(v -> {}, second::set);
+        upstream.tryEmitError(new IllegalStateException("upstream down"));
+        
+        // Then
+        assertEquals("upstream down", first.get().getMessage());
+        assertSame(first.get(), second.get());
+        assertEquals("fresh", singleFlight.execute("5701234567899", () -> Mono.just("fresh")).block());
+    }
+    
+    @Test
+    @DisplayName("Should keep the call running when only one waiter cancels")
+    void shouldKeepCallRunningWhenOneWaiterCancels() {
+        // Given
+        AtomicInteger cancellations = new AtomicInteger();
+        Sinks.One<String> upstream = Sinks.one();
+        Mono<String> call = upstream.asMono().doOnCancel(cancellations::incrementAndGet);
+        AtomicReference<String> remaining = new AtomicReference<>();
+        
+        // When
+        Disposable leaving = singleFlight.execute("5701234567899", () -> call).subscribe();
+        singleFlight.execute("5701234567899", () -> call).subscribe(remaining::set);
+        leaving.dispose();
+        upstream.tryEmitValue("product");
+        
+        // Then
+        assertEquals(0, cancellations.get());
+        assertEquals("product", remaining.get());
+    }
+    
+    @Test
+    @DisplayName("Should cancel the call once every waiter has cancelled")
+    void shouldCancelCallOnceEveryWaiterCancelled() {
+        // Given
+        AtomicInteger cancellations = new AtomicInteger();
+        Mono<String> call = Sinks.<String>one().asMono().doOnCancel(cancellations::incrementAndGet);
+        
+        // When
+        Disposable first = singleFlight.execute("5701234567899", () -> call).subscribe();
+        Disposable second = singleFlight.execute("5701234567899", () -> call).subscribe();
+        first.dispose();
+        second.dispose();
+        
+        // Then
+        assertEquals(1, cancellations.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+    
+    @Test
+    @DisplayName("Should leave a newer call in place when a late subscriber reaches a finished one")
+    void shouldKeepNewerCallForLateSubscribers() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        List<Sinks.One<String>> upstreams = new ArrayList<>();
+        Supplier<Mono<String>> call = () -> {
+            calls.incrementAndGet();
+            Sinks.One<String> upstream = Sinks.one();
+            upstreams.add(upstream);
+            return upstream.asMono();
+        };
+        AtomicReference<String> late = new AtomicReference<>();
+        // Calls taken from the map that finish before their late callers subscribe
+        Mono<String> completed = singleFlight.shared("5701234567899", call);
+        completed.subscribe();
+        upstreams.get(0).tryEmitValue("old");
+        Mono<String> cancelled = singleFlight.shared("5701234567899", call);
+        cancelled.subscribe().dispose();
+        singleFlight.execute("5701234567899", call).subscribe();
+        
+        // When
+        completed.subscribe(late::set);
+        // A cancelled call runs again for a late subscriber and finishes while the newer one is in flight
+        cancelled.subscribe();
+        upstreams.get(3).tryEmitValue("rerun");
+        singleFlight.execute("5701234567899", call).subscribe();
+        
+        // Then
+        assertEquals("old", late.get());
+        // The last caller joined the newer call instead of starting a fifth
+        assertEquals(4, calls.get());
+        assertEquals(1, singleFlight.inFlightCount());
+    }
+}
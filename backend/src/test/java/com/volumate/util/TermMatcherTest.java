@@ -0,0 +1,48 @@
+package com.volumate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermMatcherTest {
+    
+    private final List<String> terms = List.of("oat", "coating", "rolled oats", "snack", "salty-snacks", "ham");
+    private final TermMatcher matcher = new TermMatcher(terms);
+    
+    @Test
+    @DisplayName("Should report every term occurring as a substring, overlaps included")
+    void shouldReportOverlappingTerms() {
+        long found = matcher.match("en:salty-snacks,chocolate coating,rolled oats");
+        
+        assertEquals(0b011111, found);
+        assertEquals(0b100000, matcher.match("hamburger"));
+        assertEquals(0, matcher.match(""));
+    }
+    
+    @Test
+    @DisplayName("Should agree with String.contains on generated texts")
+    void shouldAgreeWithContains() {
+        String alphabet = "oatcingrled hmsky-,";
+        Random random = new Random(7);
+        for (int n = 0; n < 5000; n++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                text.append(random.nextInt(5) == 0
+                    ? terms.get(random.nextInt(terms.size()))
+                    : String.valueOf(alphabet.charAt(random.nextInt(alphabet.length()))));
+            }
+            long expected = 0;
+            for (int t = 0; t < terms.size(); t++) {
+                if (text.toString().contains(terms.get(t))) {
+                    expected |= 1L << t;
+                }
+            }
+            assertEquals(expected, matcher.match(text), text.toString());
+        }
+    }
+}
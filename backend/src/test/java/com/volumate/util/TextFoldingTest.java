@@ -0,0 +1,34 @@
+package com.volumate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextFoldingTest {
+
+    @Test
+    @DisplayName("Should fold Danish spelling variants into one key")
+    void shouldFoldDanishVariants() {
+        assertEquals("rugbrod", TextFolding.fold("Rugbrød"));
+        assertEquals("rugbrod", TextFolding.fold("rugbrod"));
+        assertEquals("rugbrod", TextFolding.fold("RUGBROED"));
+        assertEquals("knaekbrod", TextFolding.fold("knækbrød"));
+        assertEquals("knaekbrod", TextFolding.fold("knaekbrød"));
+        assertEquals("blomkal", TextFolding.fold("blomkål"));
+        assertEquals("blomkal", TextFolding.fold("blomkaal"));
+        assertEquals("musli bar", TextFolding.fold("Müsli Bar"));
+    }
+
+    @Test
+    @DisplayName("Should drop language prefixes and surrounding whitespace")
+    void shouldDropPrefixesAndWhitespace() {
+        assertEquals("cereals,havregryn", TextFolding.fold("en:cereals,da:havregryn"));
+        assertEquals("cereals, havregryn (oats)", TextFolding.fold("en:cereals, da:havregryn (en:oats)"));
+        assertEquals("chicken: 40%, rice", TextFolding.fold("Chicken: 40%, rice"));
+        assertEquals("linsen: 10%", TextFolding.fold("linsen: 10%"));
+        assertEquals("sodavand: citron", TextFolding.fold("sodavand: citron"));
+        assertEquals("aeg", TextFolding.fold("  æg "));
+        assertEquals("", TextFolding.fold(""));
+    }
+}
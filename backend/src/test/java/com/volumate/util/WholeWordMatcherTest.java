@@ -0,0 +1,86 @@
+package com.volumate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WholeWordMatcherTest {
+    
+    private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+    
+    WholeWordMatcherTest() {
+        dictionary.put("ost", 146);
+        dictionary.put("hytteost", 180);
+        dictionary.put("oats", 209);
+        dictionary.put("rolled oats", 209);
+        dictionary.put("ham", 160);
+        dictionary.put("hamburg", 160);
+        dictionary.put("kiks", 65);
+        dictionary.put("tuna", 225);
+        dictionary.put("tun", 190);
+        dictionary.put("rugbrød", 170);
+        dictionary.put("salty-snacks", 91);
+        dictionary.put("æg", 150);
+        dictionary.put("müsli bar", 110);
+        dictionary.put("salsa", 65);
+    }
+    
+    @Test
+    @DisplayName("Should pick the longest whole-word key")
+    void shouldPickLongestWholeWordKey() {
+        WholeWordMatcher<Integer> matcher = new WholeWordMatcher<>(dictionary);
+        
+        assertEquals("rolled oats", matcher.findLongestKey("organic rolled oats 500g"));
+        assertEquals("hytteost", matcher.findLongestKey("arla hytteost 4%"));
+        assertEquals("ham", matcher.findLongestKey("ham & cheese"));
+        assertEquals("rugbrød", matcher.findLongestKey("groft rugbrød"));
+        assertEquals(150, matcher.findLongest("økologiske æg"));
+        assertNull(matcher.findLongestKey("hamburger"));
+        assertNull(matcher.findLongestKey("riskiks"));
+        assertNull(matcher.findLongestKey(""));
+    }
+    
+    @Test
+    @DisplayName("Should agree with the per-key word-boundary regex on generated names")
+    void shouldAgreeWithRegexOracle() {
+        WholeWordMatcher<Integer> matcher = new WholeWordMatcher<>(dictionary);
+        List<String> keys = new ArrayList<>(dictionary.keySet());
+        String[] glue = {" ", "", "-", "_", ",", "ø", "1", "́", ":", "x"};
+        Random random = new Random(42);
+        
+        for (int n = 0; n < 5000; n++) {
+            StringBuilder name = new StringBuilder();
+            int parts = 1 + random.nextInt(4);
+            for (int p = 0; p < parts; p++) {
+                name.append(glue[random.nextInt(glue.length)]);
+                String key = keys.get(random.nextInt(keys.size()));
+                // Occasionally cut the key short so near-misses are covered too
+                name.append(random.nextInt(4) == 0 ? key.substring(0, 1 + random.nextInt(key.length())) : key);
+            }
+            name.append(glue[random.nextInt(glue.length)]);
+            
+            assertEquals(regexLongestKey(name.toString()), matcher.findLongestKey(name), name.toString());
+        }
+    }
+    
+    // The lookup SatietyIndexService used before the matcher
+    private String regexLongestKey(String text) {
+        String bestMatchKey = null;
+        for (String key : dictionary.keySet()) {
+            if (Pattern.compile("\\b" + Pattern.quote(key) + "\\b").matcher(text).find()) {
+                if (bestMatchKey == null || key.length() > bestMatchKey.length()) {
+                    bestMatchKey = key;
+                }
+            }
+        }
+        return bestMatchKey;
+    }
+}
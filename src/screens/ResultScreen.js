@@ -153,7 +153,7 @@ const ResultScreen = ({ route, navigation }) => {
           <View style={[styles.card, { backgroundColor: themeStyles.card, marginTop: 110, borderRadius: 15, borderWidth: 0.15, borderColor: '#FFFFFF' }]}>
             <Text style={[styles.title, { color: themeStyles.text }]}>{product.displayName || 'No product name'}</Text>
             {product.image_url ? (
-              <Image source={{ uri: product.image_url }} style={styles.productImage} />
+              <Image source={{ uri: apiClient.thumbnailUrl(barcode, 'large') }} style={styles.productImage} />
             ) : (
               <View style={styles.imagePlaceholder}>
                 <Text style={{color: themeStyles.secondaryText}}>No Image Available</Text>
@@ -3,6 +3,7 @@ import { View, Text, StyleSheet, FlatList, Image, TouchableOpacity, Alert } from
 import { useIsFocused } from '@react-navigation/native';
 import { ThemeContext } from '../contexts/ThemeContext';
 import { getSavedProducts, deleteProduct } from '../utils/database';
+import { apiClient } from '../utils/api';
 import { Ionicons } from '@expo/vector-icons';
 
 const SavedScreen = ({ navigation }) => {
@@ -38,7 +39,7 @@ const SavedScreen = ({ navigation }) => {
   const renderItem = ({ item }) => (
     <View style={[styles.card, { backgroundColor: themeStyles.card }]}>
       {item.image_url ? (
-        <Image source={{ uri: item.image_url }} style={styles.productImage} />
+        <Image source={{ uri: apiClient.thumbnailUrl(item.barcode, 'small') }} style={styles.productImage} />
       ) : (
         <View style={[styles.productImage, { backgroundColor: '#e0e0e0', justifyContent: 'center', alignItems: 'center' }]}>
           <Text style={{ color: '#757575', fontSize: 12 }}>No Image</Text>
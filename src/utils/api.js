@@ -27,6 +27,11 @@ export const apiClient = {
     }
   },
 
+  // Small JPEG of the product image served by the backend; size is 'small', 'medium' or 'large'
+  thumbnailUrl(barcode, size = 'medium') {
+    return `${API_BASE_URL}/images/products/${barcode}?size=${size}`;
+  },
+
   async healthCheck() {
     try {
       const response = await fetch(`${API_BASE_URL}/products/health`);